@@ -46,6 +46,20 @@ repositories {
     mavenCentral()
 }
 
+// 性能测试，运行 gradle jmh
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+}
+
 dependencies {
     // EasyExcel，用于导出座位表
     implementation("com.alibaba:easyexcel:3.3.3")
@@ -59,6 +73,20 @@ dependencies {
     // Lombok
     compileOnly("org.projectlombok:lombok:1.18.30")
     annotationProcessor("org.projectlombok:lombok:1.18.30")
+
+    // JMH，用于性能测试
+    // Lombok要在JMH之前处理
+    "jmhCompileOnly"("org.projectlombok:lombok:1.18.30")
+    "jmhAnnotationProcessor"("org.projectlombok:lombok:1.18.30")
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
+    // JUnit，用于单元测试
+    testCompileOnly("org.projectlombok:lombok:1.18.30")
+    testAnnotationProcessor("org.projectlombok:lombok:1.18.30")
+    testImplementation(platform("org.junit:junit-bom:5.10.1"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.compileJava {
@@ -69,6 +97,36 @@ tasks.compileTestJava {
     options.encoding = "UTF-8"
 }
 
+// 测试时使用单独的用户目录，以免读写真实的配置文件
+tasks.test {
+    useJUnitPlatform()
+    val testHome = layout.buildDirectory.dir("test-home").get().asFile
+    systemProperty("user.home", testHome.path)
+    doFirst {
+        testHome.mkdirs()
+    }
+}
+
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.encoding = "UTF-8"
+}
+
+// 结果以JSON格式输出，便于比较不同版本；可用 -PjmhArgs="..." 传入其他参数，如要运行的测试
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks, with allocation profiling and JSON results."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    args("-prof", "gc", "-rf", "json", "-rff", resultFile.path)
+    (project.findProperty("jmhArgs") as String?)?.let { args(it.split(" ").filter { arg -> arg.isNotBlank() }) }
+
+    doFirst {
+        resultFile.parentFile.mkdirs()
+    }
+}
+
 tasks.javadoc {
     options {
         encoding = "UTF-8"
@@ -0,0 +1,72 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark of a single attempt of reshuffling, which should allocate nothing.
+ * <p>
+ * Run with {@code gradle jmh -PjmhArgs=AttemptBenchmark}, and check that {@code gc.alloc.rate.norm} of {@link #next()} is 0.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttemptBenchmark {
+
+    private SeatTableGeneratorAndCheckerImpl.Attempt attempt;
+
+    private Random rd;
+
+    @Setup
+    public void setup() {
+        val names  = IntStream.range(0, 46).mapToObj(Integer::toString).collect(Collectors.joining(" "));
+        val config = new CachedMapSeatConfig();
+        config.setRowCount(6);
+        config.setColumnCount(8);
+        config.setRandomBetweenRows(3);
+        config.setDisabledLastRowPos("");
+        config.setNames(names);
+        config.setGroupLeaders(names);
+        config.setSeparatedPairs("1 2\n3 4\n5 6\n7 8");
+        config.setLucky(true);
+
+        attempt = new SeatTableGeneratorAndCheckerImpl.Attempt(CompiledSeatConfig.of(config.refresh()));
+        rd = new Random(0);
+    }
+
+    @Benchmark
+    public boolean next() {
+        return attempt.next(rd);
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig;
+import lombok.val;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Configs shared by the benchmarks.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class BenchmarkConfigs {
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private BenchmarkConfigs() {
+    }
+
+    /**
+     * Returns a config of a full room where everyone may be a group leader,
+     * with randomly chosen separated pairs.
+     *
+     * @param room        size of the room, in the format of "rowsxcolumns", for example "6x8"
+     * @param pairDensity count of separated pairs per person
+     *
+     * @return the config, refreshed
+     */
+    static CachedMapSeatConfig config(final String room, final double pairDensity) {
+        val size        = room.split("x");
+        val rowCount    = Integer.parseInt(size[0]);
+        val columnCount = Integer.parseInt(size[1]);
+        val peopleNum   = rowCount * columnCount;
+        val names       = IntStream.range(0, peopleNum).mapToObj(Integer::toString).collect(Collectors.joining(" "));
+
+        // 固定种子，保证每次运行的配置相同
+        val rd    = new Random(0);
+        val pairs = new StringBuilder();
+        for (var i = (int) (peopleNum * pairDensity); i > 0; i--) {
+            val a = rd.nextInt(peopleNum);
+            val b = rd.nextInt(peopleNum);
+            if (a != b) {
+                pairs.append(a).append(' ').append(b).append('\n');
+            }
+        }
+
+        val config = new CachedMapSeatConfig();
+        config.setRowCount(rowCount);
+        config.setColumnCount(columnCount);
+        config.setRandomBetweenRows(Math.min(3, rowCount));
+        config.setDisabledLastRowPos("");
+        config.setNames(names);
+        config.setGroupLeaders(names);
+        config.setSeparatedPairs(pairs.toString());
+        config.setLucky(false);
+        return config.refresh();
+    }
+
+}
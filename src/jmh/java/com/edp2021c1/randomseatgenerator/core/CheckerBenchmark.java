@@ -0,0 +1,80 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of checking a seat table.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckerBenchmark {
+
+    @Param({"6x8", "10x10", "30x30", "100x100"})
+    private String room;
+
+    @Param({"0", "0.05", "0.2"})
+    private double pairDensity;
+
+    private SeatConfig config;
+
+    private CompiledSeatConfig compiled;
+
+    private List<String> table;
+
+    @Setup
+    public void setup() {
+        config = BenchmarkConfigs.config(room, pairDensity);
+        compiled = CompiledSeatConfig.of(config);
+        // 去掉组长标记，与生成时检查的座位表相同
+        table = SeatTableGenerator.defaultGenerator.generate(config, "0")
+                .getTable()
+                .stream()
+                .map(s -> SeatTable.groupLeaderRegexPredicate.test(s) ? s.substring(1, s.length() - 1) : s)
+                .toList();
+    }
+
+    @Benchmark
+    public boolean check() {
+        return ((SeatTableGeneratorAndChecker) SeatTableGenerator.defaultGenerator).check(table, compiled);
+    }
+
+    @Benchmark
+    public boolean checkSeperated() {
+        val columnCount = config.columnCount();
+        var res         = true;
+        for (val pair : config.separatedPairs()) {
+            res &= pair.checkSeperated(table, columnCount);
+        }
+        return res;
+    }
+
+}
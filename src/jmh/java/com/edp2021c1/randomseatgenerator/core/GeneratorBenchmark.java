@@ -0,0 +1,72 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of generating a seat table.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"6x8", "10x10", "30x30", "100x100"})
+    private String room;
+
+    @Param({"0", "0.05", "0.2"})
+    private double pairDensity;
+
+    @Param({"sampling", "backtracking"})
+    private String generator;
+
+    private SeatConfig config;
+
+    private SeatTableGenerator seatTableGenerator;
+
+    private long seed;
+
+    @Setup
+    public void setup() {
+        config = BenchmarkConfigs.config(room, pairDensity);
+        seatTableGenerator = switch (generator) {
+            case "sampling" -> SeatTableGenerator.samplingGenerator;
+            case "backtracking" -> SeatTableGenerator.defaultGenerator;
+            default -> throw new IllegalArgumentException("Unknown generator: " + generator);
+        };
+    }
+
+    @Benchmark
+    public SeatTable generate() {
+        // 每次使用不同的种子，避免只测到某一个种子
+        val s = Long.toString(seed++);
+        return seatTableGenerator.generate(config, s);
+    }
+
+}
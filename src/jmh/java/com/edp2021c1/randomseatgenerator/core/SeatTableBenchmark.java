@@ -0,0 +1,60 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of turning a seat table into other formats.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatTableBenchmark {
+
+    @Param({"6x8", "10x10", "30x30", "100x100"})
+    private String room;
+
+    private SeatTable seatTable;
+
+    @Setup
+    public void setup() {
+        seatTable = SeatTableGenerator.defaultGenerator.generate(BenchmarkConfigs.config(room, 0), "0");
+    }
+
+    @Benchmark
+    public List<RowData> toRowData() {
+        return seatTable.toRowData();
+    }
+
+    @Benchmark
+    public String toStringBenchmark() {
+        return seatTable.toString();
+    }
+
+}
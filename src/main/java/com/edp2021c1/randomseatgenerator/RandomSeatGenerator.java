@@ -18,10 +18,12 @@
 
 package com.edp2021c1.randomseatgenerator;
 
+import com.edp2021c1.randomseatgenerator.core.ExportFormat;
 import com.edp2021c1.randomseatgenerator.core.SeatTable;
 import com.edp2021c1.randomseatgenerator.ui.stage.MainWindow;
 import com.edp2021c1.randomseatgenerator.util.*;
 import com.edp2021c1.randomseatgenerator.util.config.AppPropertiesHolder;
+import com.edp2021c1.randomseatgenerator.util.config.ProfileStore;
 import com.edp2021c1.randomseatgenerator.util.config.SeatConfigHolder;
 import com.edp2021c1.randomseatgenerator.util.useroutput.CrashReporter;
 import javafx.application.Application;
@@ -29,9 +31,12 @@ import javafx.stage.Stage;
 import lombok.val;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
 import static com.edp2021c1.randomseatgenerator.util.Metadata.KEY_EXPORT_WRITABLE;
@@ -132,13 +137,29 @@ public final class RandomSeatGenerator extends Application {
                     outputPath = PathWrapper.wrap(namedPara.get("output-path"));
                     LOG.info("Output path set to " + outputPath);
                     if (outputPath.exists()) {
-                        LOG.warning("Something's already on the output path, will move to trash");
-                        outputPath.moveToTrash();
+                        LOG.warning("Something's already on the output path, will be replaced");
                     }
                 }
 
+                // 导出格式，默认由扩展名决定
+                ExportFormat format = null;
+                if (namedPara.containsKey("format")) {
+                    val name = namedPara.get("format");
+                    try {
+                        format = ExportFormat.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    } catch (final IllegalArgumentException e) {
+                        LOG.warning("Unknown output format \"%s\"".formatted(name));
+                        System.out.println("Valid formats: " + Arrays.stream(ExportFormat.values())
+                                .map(f -> f.name().toLowerCase(Locale.ROOT))
+                                .collect(Collectors.joining(", ")));
+                        System.exit(1);
+                        return;
+                    }
+                    LOG.info("Output format set to " + format);
+                }
+
                 // 处理座位表生成配置
-                var config = SeatConfigHolder.global().getClone().checkAndReturn();
+                var config = SeatConfigHolder.global().getSnapshot();
                 // 座位表生成配置文件路径，默认为当前目录下的seat_config.json
                 var configPath = SeatConfigHolder.global().getConfigPath();
                 // 获取配置文件路径
@@ -147,11 +168,20 @@ public final class RandomSeatGenerator extends Application {
                     LOG.info("Config path set to " + configPath);
                     try {
                         val holder = SeatConfigHolder.createHolder(configPath, false);
-                        config = holder.getClone().checkAndReturn();
+                        config = holder.getSnapshot();
                         holder.close();
                     } catch (final IOException e) {
                         throw new RuntimeException("Failed to load config from specific file", e);
                     }
+                } else if (namedPara.containsKey("profile")) {
+                    // 只读取所选方案，其余方案不解析
+                    val profile = namedPara.get("profile");
+                    LOG.info("Profile set to " + profile);
+                    try {
+                        config = ProfileStore.global().snapshot(profile);
+                    } catch (final IOException e) {
+                        throw new RuntimeException("Failed to load profile " + profile, e);
+                    }
                 }
                 LOG.debug("Config path: " + configPath);
 
@@ -162,7 +192,7 @@ public final class RandomSeatGenerator extends Application {
 
                 // 导出
                 LOG.debug("Exporting seat table to \"%s\"".formatted(outputPath));
-                seatTable.exportToChart(outputPath, AppPropertiesHolder.global().getBoolean(KEY_EXPORT_WRITABLE));
+                seatTable.exportToChart(outputPath, format, AppPropertiesHolder.global().getBoolean(KEY_EXPORT_WRITABLE));
                 LOG.info("Seat table successfully exported to \"%s\"".formatted(outputPath));
 
                 if (unnamedPara.contains("--open-result")) {
@@ -0,0 +1,229 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+/**
+ * Rule deciding which seats are too close for a separated pair.
+ * <p>
+ * Rules are only evaluated when building a {@link NeighbourTable},
+ * so checking a pair on the hot path is a lookup in a short list whatever the rule is.
+ * A rule should override {@link #rowReach()} if its neighbours are always within a few rows,
+ * or every pair of seats has to be evaluated.
+ * A rule must be symmetric, and is cached by {@link #equals(Object)},
+ * so a custom rule should be kept as a constant instead of created on every generation.
+ *
+ * @author Calboot
+ * @see NeighbourTable
+ * @see SeatConfig#adjacencyRule()
+ * @since 1.6.0
+ */
+@FunctionalInterface
+public interface AdjacencyRule {
+
+    /**
+     * The rule used before adjacency rules are introduced.
+     * <p>
+     * It is roughly 8-neighbour, but also takes some seats at the other end of the next row
+     * as neighbours for seats at the edge.
+     *
+     * @see NamePair#separated(int, int, int)
+     */
+    AdjacencyRule DEFAULT = new Bounded(2, (a, b, columnCount) -> !NamePair.separated(a, b, columnCount));
+
+    /**
+     * Seats sharing an edge, that is, left, right, front and back.
+     */
+    AdjacencyRule FOUR_NEIGHBOUR = new Bounded(1, (a, b, columnCount) ->
+            Math.abs(a / columnCount - b / columnCount) + Math.abs(a % columnCount - b % columnCount) == 1);
+
+    /**
+     * Seats sharing an edge or a corner.
+     */
+    AdjacencyRule EIGHT_NEIGHBOUR = radius(1);
+
+    /**
+     * Seats next to each other in the same row only.
+     */
+    AdjacencyRule SAME_ROW = new Bounded(0, (a, b, columnCount) ->
+            a / columnCount == b / columnCount && Math.abs(a - b) == 1);
+
+    /**
+     * Returns the rule taking seats within a certain number of rows and columns as neighbours.
+     *
+     * @param radius max distance in rows and columns
+     *
+     * @return the rule
+     *
+     * @throws IllegalConfigException if radius is not positive
+     */
+    static AdjacencyRule radius(final int radius) throws IllegalConfigException {
+        if (radius <= 0) {
+            throw new IllegalConfigException("Adjacency radius must be positive");
+        }
+        return new Radius(radius);
+    }
+
+    /**
+     * Parses a rule.
+     * <p>
+     * Accepted values are "default", "4-neighbour", "8-neighbour", "same-row" and "radius N",
+     * where {@code N} is a positive integer.
+     *
+     * @param s to parse
+     *
+     * @return the rule, {@link #DEFAULT} if {@code s} is null or blank
+     *
+     * @throws IllegalConfigException if {@code s} is not a valid rule
+     */
+    static AdjacencyRule parse(final String s) throws IllegalConfigException {
+        if (s == null || s.isBlank()) {
+            return DEFAULT;
+        }
+        val t = s.strip().split(" ", 2);
+        switch (t[0]) {
+            case "default" -> {
+                return DEFAULT;
+            }
+            case "4-neighbour" -> {
+                return FOUR_NEIGHBOUR;
+            }
+            case "8-neighbour" -> {
+                return EIGHT_NEIGHBOUR;
+            }
+            case "same-row" -> {
+                return SAME_ROW;
+            }
+            case "radius" -> {
+                try {
+                    return radius(Integer.parseInt(t[1].strip()));
+                } catch (final RuntimeException e) {
+                    throw new IllegalConfigException("Invalid adjacency radius: \"%s\"".formatted(s));
+                }
+            }
+            default -> throw new IllegalConfigException("Invalid adjacency rule: \"%s\"".formatted(s));
+        }
+    }
+
+    /**
+     * Formats a rule into the value accepted by {@link #parse(String)}.
+     *
+     * @param rule to format
+     *
+     * @return the formatted rule, null if it is not a built-in rule
+     */
+    static String format(final AdjacencyRule rule) {
+        if (rule == DEFAULT) {
+            return "default";
+        }
+        if (rule == FOUR_NEIGHBOUR) {
+            return "4-neighbour";
+        }
+        if (rule == SAME_ROW) {
+            return "same-row";
+        }
+        if (rule instanceof final Radius r) {
+            return r.radius == 1 ? "8-neighbour" : "radius " + r.radius;
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether two different seats are too close for a separated pair.
+     *
+     * @param a           index of the first seat
+     * @param b           index of the second seat
+     * @param columnCount count of columns of the seat table
+     *
+     * @return whether the two seats are neighbours
+     */
+    boolean adjacent(int a, int b, int columnCount);
+
+    /**
+     * Returns the max count of rows between two neighbours, used to skip evaluating seats too far away.
+     *
+     * @return the max count of rows between two neighbours, {@link Integer#MAX_VALUE} if not bounded
+     */
+    default int rowReach() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Rule with a known {@link #rowReach()}, used by the built-in rules.
+     */
+    final class Bounded implements AdjacencyRule {
+
+        private final int rowReach;
+
+        private final AdjacencyRule rule;
+
+        private Bounded(final int rowReach, final AdjacencyRule rule) {
+            this.rowReach = rowReach;
+            this.rule = rule;
+        }
+
+        @Override
+        public boolean adjacent(final int a, final int b, final int columnCount) {
+            return rule.adjacent(a, b, columnCount);
+        }
+
+        @Override
+        public int rowReach() {
+            return rowReach;
+        }
+
+    }
+
+    /**
+     * Rule taking seats within a certain Chebyshev distance as neighbours.
+     */
+    final class Radius implements AdjacencyRule {
+
+        private final int radius;
+
+        private Radius(final int radius) {
+            this.radius = radius;
+        }
+
+        @Override
+        public boolean adjacent(final int a, final int b, final int columnCount) {
+            return Math.abs(a / columnCount - b / columnCount) <= radius
+                    && Math.abs(a % columnCount - b % columnCount) <= radius;
+        }
+
+        @Override
+        public int rowReach() {
+            return radius;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof final Radius other && other.radius == radius;
+        }
+
+        @Override
+        public int hashCode() {
+            return radius;
+        }
+
+    }
+
+}
@@ -0,0 +1,675 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static com.edp2021c1.randomseatgenerator.core.CompiledSeatConfig.EMPTY;
+
+/**
+ * Generator implementation that places people one seat at a time,
+ * with forward checking, random restarts and then bounded backtracking.
+ * <p>
+ * People are drawn at random within each band of {@code random_between_rows} rows, which is the same as
+ * shuffling the bands like {@link SeatTableGeneratorAndCheckerImpl} does,
+ * but a restart is made as soon as a rule is broken, or the forward checks find that the group leader
+ * and separated pair rules can no longer be satisfied, instead of after the whole seat table is shuffled.
+ * The checks only give up seat tables that would be invalid anyway,
+ * so the seat tables found by restarts are distributed the same as by reshuffling, each valid one equally likely,
+ * and the work of a restart is bounded by the count of seats.
+ * <p>
+ * If no seat table is found after {@value #MAX_RESTARTS} restarts, the generator switches to a depth-first search
+ * that tries the values of each seat in a random order and backtracks on failure,
+ * restarted with a new random order after {@value #MAX_BACKTRACKING_STEPS} placements.
+ * A seat table found this way is valid but not uniformly distributed,
+ * as seat tables close to the ones tried first are favoured,
+ * which is only paid for by configs with too few valid seat tables to be found by restarts.
+ * A search that ends within the bound proves that no seat table exists with the chosen lucky person,
+ * and the config is rejected once this is proved for all of them.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class BacktrackingSeatTableGenerator implements SeatTableGeneratorAndChecker {
+
+    static final SeatTableGenerator instance = new BacktrackingSeatTableGenerator();
+
+    /**
+     * Count of restarts before switching to backtracking.
+     */
+    static final int MAX_RESTARTS = 1 << 12;
+
+    /**
+     * Max count of placements of a search with backtracking, before it is restarted with a new random order.
+     */
+    static final int MAX_BACKTRACKING_STEPS = 1 << 16;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private BacktrackingSeatTableGenerator() {
+    }
+
+    @Override
+    public SeatTable generate(final SeatConfig config, final String seed) throws IllegalConfigException {
+        return generate(config, seed, CancellationToken.create());
+    }
+
+    @Override
+    public SeatTable generate(final SeatConfig config, String seed, final CancellationToken token)
+            throws IllegalConfigException, GenerationCancelledException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        return generate(compiled, seed, token);
+    }
+
+    @Override
+    public Stream<SeatTable> generateAll(final SeatConfig config, final Stream<String> seeds, final CancellationToken token)
+            throws IllegalConfigException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        return seeds.parallel().map(seed -> generate(compiled, seed, token));
+    }
+
+    private static SeatTable generate(final CompiledSeatConfig compiled, String seed, final CancellationToken token)
+            throws IllegalConfigException, GenerationCancelledException {
+        val rd = new Random(Seeds.toLong(seed));
+        seed = Seeds.describe(seed);
+
+        val lucky                  = compiled.isLucky();
+        val luckyPersonOriginIndex = compiled.getLuckyPersonOriginIndex();
+        val luckyCandidateCount    = lucky ? compiled.getPeopleNum() - luckyPersonOriginIndex : 1;
+        val stats                  = new GenerationStats(compiled);
+        val search                 = new Search(compiled, stats);
+
+        // 尚未证明无解的幸运儿，前candidateCount个有效
+        val candidates = new int[luckyCandidateCount];
+        for (var i = 0; i < luckyCandidateCount; i++) {
+            candidates[i] = lucky ? luckyPersonOriginIndex + i : EMPTY;
+        }
+        var candidateCount = luckyCandidateCount;
+
+        var success = false;
+        try {
+            var attempts = 0;
+            var restarts = 0;
+            while (true) {
+                // 每次重新开始都重新选择幸运儿，与重新洗牌一致
+                val c       = lucky ? rd.nextInt(candidateCount) : 0;
+                val luckyId = candidates[c];
+                attempts++;
+                if (restarts < MAX_RESTARTS) {
+                    restarts++;
+                    if (search.run(luckyId, rd)) {
+                        break;
+                    }
+                } else {
+                    val outcome = search.backtrack(luckyId, rd);
+                    if (outcome == Outcome.FOUND) {
+                        break;
+                    }
+                    if (outcome == Outcome.EXHAUSTED) {
+                        candidates[c] = candidates[--candidateCount];
+                        if (candidateCount == 0) {
+                            throw new IllegalConfigException("No seat table satisfies the config");
+                        }
+                    }
+                    // 每次回溯搜索的工作量较大，每次都检查是否取消
+                    stats.attempt(attempts);
+                    token.checkpoint(attempts);
+                    attempts = 0;
+                    continue;
+                }
+                if (attempts == CancellationToken.CHECK_INTERVAL) {
+                    stats.attempt(attempts);
+                    token.checkpoint(attempts);
+                    attempts = 0;
+                }
+            }
+            stats.attempt(attempts);
+            token.addAttempts(attempts);
+
+            val res = new SeatTable(
+                    compiled.toCells(search.seatPerson, rd),
+                    compiled.getConfig(),
+                    seed,
+                    lucky ? compiled.name(search.luckyId) : ""
+            );
+            success = true;
+            return res;
+        } finally {
+            stats.finish(instance, seed, success);
+        }
+    }
+
+    /**
+     * Result of a search with backtracking.
+     */
+    private enum Outcome {
+
+        /**
+         * A valid seat table is found.
+         */
+        FOUND,
+        /**
+         * Every choice is tried and no valid seat table exists.
+         */
+        EXHAUSTED,
+        /**
+         * The search stops at the max count of steps.
+         */
+        STOPPED
+
+    }
+
+    /**
+     * State of placing people seat by seat, reused between restarts.
+     * <p>
+     * Seats are visited band by band, each band being a group of {@code random_between_rows} rows,
+     * and the depth {@code k} means the seats {@code order[0..k)} are assigned.
+     * The pool holds the values to place in the same layout as {@code order},
+     * so the values of a band are always kept within the band.
+     * The value of each seat is drawn at random from the values left in its band,
+     * in the same way as shuffling the band, and the restart is given up
+     * as soon as a rule is broken or the forward checks find that the rest of the seats cannot be filled.
+     */
+    private static final class Search {
+
+        private final CompiledSeatConfig compiled;
+
+        private final int columnCount;
+
+        private final NeighbourTable neighbours;
+
+        private final GenerationStats stats;
+
+        private final int bandSize;
+
+        /**
+         * Seat assigned at each depth.
+         */
+        private final int[] order;
+
+        /**
+         * Value placed at each depth, either a person ID or {@link CompiledSeatConfig#EMPTY}.
+         * <p>
+         * Within the unassigned depths of a band, people are always kept before the empty values.
+         */
+        private final int[] pool;
+
+        /**
+         * Start and end depth of each band.
+         */
+        private final int[] bandStart, bandEnd;
+
+        /**
+         * Band of each seat, -1 if the seat always stays empty.
+         */
+        private final int[] seatBand;
+
+        /**
+         * Whether a seat must be taken by someone.
+         */
+        private final boolean[] mandatory;
+
+        /**
+         * Band of each person, -1 for the lucky person.
+         */
+        private final int[] personBand;
+
+        /**
+         * Seat of each person, -1 if not placed yet.
+         */
+        private final int[] personSeat;
+
+        /**
+         * Person on each seat.
+         */
+        private final int[] seatPerson;
+
+        private final int bandCount;
+
+        private final int[] columnLeaders;
+
+        private final int[] bandLeadersLeft;
+
+        /**
+         * Count of people not placed yet in each band.
+         */
+        private final int[] bandPeopleLeft;
+
+        /**
+         * Count of unassigned seats of each band in each column, indexed by {@code column * bandCount + band}.
+         */
+        private final int[] columnBandFree;
+
+        /**
+         * Band matched to each column when checking group leaders, and count of columns matched to each band.
+         */
+        private final int[] matchedBand, bandLoad;
+
+        private final boolean[] visited;
+
+        /**
+         * Position in the pool swapped to each depth, count of values each depth can take,
+         * the first value tried and count of values tried, used when backtracking.
+         */
+        private final int[] choice, choiceCount, firstChoice, tried;
+
+        private int uncoveredColumns;
+
+        private int leadersLeft;
+
+        /**
+         * The lucky person of the current restart.
+         */
+        private int luckyId = EMPTY;
+
+        private Search(final CompiledSeatConfig compiled, final GenerationStats stats) {
+            this.compiled = compiled;
+            this.stats = stats;
+            columnCount = compiled.getColumnCount();
+            neighbours = compiled.getNeighbours();
+
+            val seatNum           = compiled.getSeatNum();
+            val peopleNum         = compiled.getPeopleNum();
+            val peopleInSeat      = compiled.getPeopleInSeat();
+            val peopleLeft        = compiled.getPeopleLeft();
+            val randomPeopleCount = compiled.getRandomPeopleCount();
+            val regularCount = peopleLeft == 0 ? Math.min(peopleInSeat, seatNum) : seatNum - columnCount;
+            bandSize = randomPeopleCount > 0 ? randomPeopleCount : Math.max(peopleInSeat, 1);
+            bandCount = (peopleInSeat + bandSize - 1) / bandSize;
+            val lastBand = regularCount / bandSize;
+
+            personBand = new int[peopleNum];
+            seatBand = new int[seatNum];
+            Arrays.fill(seatBand, -1);
+            mandatory = new boolean[seatNum];
+
+            val depth = regularCount + (peopleLeft == 0 ? 0 : compiled.availableLastRowPosCount());
+            order = new int[depth];
+            pool = new int[depth];
+            choice = new int[depth];
+            choiceCount = new int[depth];
+            firstChoice = new int[depth];
+            tried = new int[depth];
+            bandStart = new int[bandCount];
+            bandEnd = new int[bandCount];
+            bandLeadersLeft = new int[bandCount];
+            bandPeopleLeft = new int[bandCount];
+
+            // 座位的分组与幸运儿是谁无关
+            var k = 0;
+            for (var b = 0; b < bandCount; b++) {
+                bandStart[b] = k;
+                val from = b * bandSize;
+                val to   = Math.min(from + bandSize, peopleInSeat);
+                for (var i = from; i < Math.min(to, regularCount); i++) {
+                    order[k++] = i;
+                    seatBand[i] = b;
+                    mandatory[i] = true;
+                }
+                if (peopleLeft != 0 && b == lastBand) {
+                    for (var i = 0; i < compiled.availableLastRowPosCount(); i++) {
+                        val seat = seatNum - columnCount + compiled.availableLastRowPos(i) - 1;
+                        order[k++] = seat;
+                        seatBand[seat] = b;
+                    }
+                }
+                bandEnd[b] = k;
+            }
+
+            personSeat = new int[peopleNum];
+            Arrays.fill(personSeat, -1);
+            seatPerson = new int[seatNum];
+            Arrays.fill(seatPerson, EMPTY);
+            columnLeaders = new int[columnCount];
+
+            columnBandFree = new int[columnCount * bandCount];
+            for (val seat : order) {
+                columnBandFree[seat % columnCount * bandCount + seatBand[seat]]++;
+            }
+            matchedBand = new int[columnCount];
+            bandLoad = new int[bandCount];
+            visited = new boolean[bandCount];
+        }
+
+        /**
+         * Fills the pool with the people in seats with the lucky person chosen, sorted by height within each band.
+         */
+        private void reset(final int luckyId) {
+            this.luckyId = luckyId;
+            Arrays.fill(personBand, -1);
+            Arrays.fill(bandLeadersLeft, 0);
+            uncoveredColumns = columnCount;
+            leadersLeft = 0;
+
+            var b = 0;
+            var p = 0;
+            var n = 0;
+            for (var i = 0; i < personBand.length; i++) {
+                if (i == luckyId) {
+                    continue;
+                }
+                if (n == bandSize) {
+                    while (p < bandEnd[b]) {
+                        pool[p++] = EMPTY;
+                    }
+                    b++;
+                    n = 0;
+                }
+                pool[p++] = i;
+                n++;
+                personBand[i] = b;
+                if (compiled.isGroupLeader(i)) {
+                    bandLeadersLeft[b]++;
+                    leadersLeft++;
+                }
+            }
+            for (var c = 0; c < bandCount; c++) {
+                bandPeopleLeft[c] = Math.min(bandSize, compiled.getPeopleInSeat() - c * bandSize);
+            }
+            while (p < pool.length) {
+                pool[p++] = EMPTY;
+            }
+        }
+
+        /**
+         * Makes a single restart.
+         *
+         * @param luckyId the lucky person, {@link CompiledSeatConfig#EMPTY} if none
+         * @param rd      random service used to draw the values
+         *
+         * @return whether a valid seat table is found, stored in {@link #seatPerson}
+         */
+        private boolean run(final int luckyId, final Random rd) {
+            reset(luckyId);
+
+            // 有的列根本不可能有组长
+            if (!leadersCoverable()) {
+                stats.rejectLeaders();
+                return false;
+            }
+
+            val depth = order.length;
+            var b     = 0;
+            for (var k = 0; k < depth; k++) {
+                val seat = order[k];
+                while (k == bandEnd[b]) {
+                    b++;
+                }
+                val left = bandPeopleLeft[b];
+                // 必须有人的座位只从剩下的人中抽取，否则空位也可能被抽到
+                val x = rd.nextInt(mandatory[seat] ? left : bandEnd[b] - k);
+                if (x < left) {
+                    swap(k, k + x);
+                    bandPeopleLeft[b]--;
+                } else {
+                    swap(k, k + left);
+                }
+                if (!place(pool[k], seat, k)) {
+                    clear(k);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Makes a search with backtracking, trying the people left in the band of each seat and an empty value,
+         * starting from a random one, for at most {@link #MAX_BACKTRACKING_STEPS} placements.
+         *
+         * @param luckyId the lucky person, {@link CompiledSeatConfig#EMPTY} if none
+         * @param rd      random service used to choose the first value tried
+         *
+         * @return the outcome, with the seat table stored in {@link #seatPerson} if found
+         */
+        private Outcome backtrack(final int luckyId, final Random rd) {
+            reset(luckyId);
+
+            if (!leadersCoverable()) {
+                stats.rejectLeaders();
+                return Outcome.EXHAUSTED;
+            }
+
+            val depth = order.length;
+            var k     = 0;
+            var steps = 0;
+            if (depth > 0) {
+                enter(0, rd);
+            }
+            while (k < depth) {
+                val seat = order[k];
+                val band = seatBand[seat];
+                if (tried[k] == choiceCount[k]) {
+                    if (k == 0) {
+                        return Outcome.EXHAUSTED;
+                    }
+                    // 回到上一个座位，换一个值
+                    k--;
+                    unplace(pool[k], order[k]);
+                    undo(k);
+                    continue;
+                }
+                if (steps++ == MAX_BACKTRACKING_STEPS) {
+                    clear(k);
+                    return Outcome.STOPPED;
+                }
+                val left = bandPeopleLeft[band];
+                val x    = (firstChoice[k] + tried[k]++) % choiceCount[k];
+                // 空位只尝试一次
+                choice[k] = k + Math.min(x, left);
+                swap(k, choice[k]);
+                if (pool[k] != EMPTY) {
+                    bandPeopleLeft[band]--;
+                }
+                if (place(pool[k], seat, k)) {
+                    if (++k < depth) {
+                        enter(k, rd);
+                    }
+                } else {
+                    undo(k);
+                }
+            }
+            return Outcome.FOUND;
+        }
+
+        /**
+         * Counts the values depth {@code k} can take and chooses the first one to try.
+         */
+        private void enter(final int k, final Random rd) {
+            val band = seatBand[order[k]];
+            val left = bandPeopleLeft[band];
+            choiceCount[k] = left + (!mandatory[order[k]] && bandEnd[band] - k > left ? 1 : 0);
+            firstChoice[k] = choiceCount[k] == 0 ? 0 : rd.nextInt(choiceCount[k]);
+            tried[k] = 0;
+        }
+
+        /**
+         * Takes back the value swapped to depth {@code k}, which is already unplaced.
+         */
+        private void undo(final int k) {
+            if (pool[k] != EMPTY) {
+                bandPeopleLeft[seatBand[order[k]]]++;
+            }
+            swap(k, choice[k]);
+        }
+
+        /**
+         * Unplaces the values of the depths {@code [0, k)}, so that the state is the same as before placing any.
+         */
+        private void clear(final int k) {
+            for (var d = 0; d < k; d++) {
+                unplace(pool[d], order[d]);
+            }
+        }
+
+        /**
+         * Places a value on a seat if it breaks no rule,
+         * and checks if the rest of the seats can still be filled.
+         *
+         * @return whether the value is placed
+         */
+        private boolean place(final int v, final int seat, final int k) {
+            val partners = v == EMPTY ? null : compiled.partners(v);
+            if (v != EMPTY) {
+                for (var i = 0; i < partners.length; i++) {
+                    val q = partners[i];
+                    if (personSeat[q] >= 0 && neighbours.adjacent(seat, personSeat[q])) {
+                        stats.reject(compiled.pairViolation(compiled.partnerPairs(v)[i]));
+                        return false;
+                    }
+                }
+                personSeat[v] = seat;
+                seatPerson[seat] = v;
+            }
+
+            val band   = seatBand[seat];
+            val column = seat % columnCount;
+            val free   = --columnBandFree[column * bandCount + band];
+            var ok     = true;
+            if (v != EMPTY && compiled.isGroupLeader(v)) {
+                if (columnLeaders[column]++ == 0) {
+                    uncoveredColumns--;
+                }
+                bandLeadersLeft[band]--;
+                leadersLeft--;
+                ok = leadersCoverable();
+            } else if (columnLeaders[column] == 0 && free == 0 && bandLeadersLeft[band] > 0) {
+                // 该列失去了一个组长来源
+                ok = leadersCoverable();
+            }
+            if (!ok) {
+                stats.rejectLeaders();
+            } else if (v != EMPTY) {
+                for (var i = 0; i < partners.length; i++) {
+                    val q = partners[i];
+                    if (personSeat[q] < 0 && personBand[q] >= 0 && !hasSeatLeft(q, k)) {
+                        stats.reject(compiled.pairViolation(compiled.partnerPairs(v)[i]));
+                        ok = false;
+                        break;
+                    }
+                }
+            }
+
+            if (!ok) {
+                unplace(v, seat);
+            }
+            return ok;
+        }
+
+        private void unplace(final int v, final int seat) {
+            if (v != EMPTY) {
+                personSeat[v] = -1;
+                seatPerson[seat] = EMPTY;
+                if (compiled.isGroupLeader(v)) {
+                    if (--columnLeaders[seat % columnCount] == 0) {
+                        uncoveredColumns++;
+                    }
+                    bandLeadersLeft[seatBand[seat]]++;
+                    leadersLeft++;
+                }
+            }
+            columnBandFree[seat % columnCount * bandCount + seatBand[seat]]++;
+        }
+
+        /**
+         * Returns whether every column without a group leader can still get one,
+         * by matching these columns to the unassigned seats of the bands with group leaders left.
+         */
+        private boolean leadersCoverable() {
+            if (uncoveredColumns > leadersLeft) {
+                return false;
+            }
+            Arrays.fill(matchedBand, -1);
+            Arrays.fill(bandLoad, 0);
+            for (var c = 0; c < columnCount; c++) {
+                if (columnLeaders[c] > 0) {
+                    continue;
+                }
+                Arrays.fill(visited, false);
+                if (!match(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Tries to match a column to a band, moving other columns to other bands if needed.
+         */
+        private boolean match(final int column) {
+            for (var b = 0; b < bandCount; b++) {
+                if (visited[b] || bandLeadersLeft[b] == 0 || columnBandFree[column * bandCount + b] == 0) {
+                    continue;
+                }
+                visited[b] = true;
+                if (bandLoad[b] < bandLeadersLeft[b]) {
+                    matchedBand[column] = b;
+                    bandLoad[b]++;
+                    return true;
+                }
+                for (var c = 0; c < columnCount; c++) {
+                    if (matchedBand[c] == b && match(c)) {
+                        // c已移至其他组，占用的名额留给column
+                        matchedBand[column] = b;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns whether an unplaced person still has a seat away from all of their placed partners,
+         * when the seats {@code order[0..k]} are assigned.
+         */
+        private boolean hasSeatLeft(final int person, final int k) {
+            val band = personBand[person];
+            for (var d = Math.max(k + 1, bandStart[band]); d < bandEnd[band]; d++) {
+                val seat = order[d];
+                var ok   = true;
+                for (val q : compiled.partners(person)) {
+                    if (personSeat[q] >= 0 && neighbours.adjacent(seat, personSeat[q])) {
+                        ok = false;
+                        break;
+                    }
+                }
+                if (ok) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void swap(final int i, final int j) {
+            val t = pool[i];
+            pool[i] = pool[j];
+            pool[j] = t;
+        }
+
+    }
+
+}
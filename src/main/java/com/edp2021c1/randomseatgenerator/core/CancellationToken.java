@@ -0,0 +1,130 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token checked by generators in their retry loops, so that generating can be stopped from outside.
+ * <p>
+ * A token is cancelled if {@link #cancel()} is called, if its deadline has passed,
+ * or if the thread checking it is interrupted.
+ * It also counts the attempts reported by the generators, to tell how far generating went.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class CancellationToken {
+
+    /**
+     * Count of attempts a generator may make between two checks.
+     */
+    static final int CHECK_INTERVAL = 64;
+
+    /**
+     * Deadline in {@link System#nanoTime()}, only valid if {@link #timed} is true.
+     */
+    private final long deadline;
+
+    private final boolean timed;
+
+    private final LongAdder attempts = new LongAdder();
+
+    private volatile boolean cancelled;
+
+    private CancellationToken(final long deadline, final boolean timed) {
+        this.deadline = deadline;
+        this.timed = timed;
+    }
+
+    /**
+     * Returns a new token without deadline.
+     *
+     * @return a new token
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(0, false);
+    }
+
+    /**
+     * Returns a new token that is cancelled automatically after the given time.
+     *
+     * @param timeout  time before cancelled
+     * @param timeUnit of {@code timeout}
+     *
+     * @return a new token
+     */
+    public static CancellationToken withTimeout(final long timeout, final TimeUnit timeUnit) {
+        return new CancellationToken(System.nanoTime() + timeUnit.toNanos(timeout), true);
+    }
+
+    /**
+     * Cancels generating.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether generating should stop.
+     *
+     * @return whether the token is cancelled, timed out, or the current thread is interrupted
+     */
+    public boolean isCancelled() {
+        return cancelled
+                || timed && System.nanoTime() - deadline >= 0
+                || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Returns count of attempts reported.
+     *
+     * @return count of attempts reported
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Reports attempts made.
+     *
+     * @param count of attempts made since last reported
+     */
+    public void addAttempts(final long count) {
+        attempts.add(count);
+    }
+
+    /**
+     * Reports attempts made, and stops generating if cancelled.
+     *
+     * @param count of attempts made since last reported
+     *
+     * @throws GenerationCancelledException if cancelled
+     */
+    public void checkpoint(final long count) throws GenerationCancelledException {
+        attempts.add(count);
+        if (isCancelled()) {
+            throw new GenerationCancelledException(getAttempts());
+        }
+    }
+
+}
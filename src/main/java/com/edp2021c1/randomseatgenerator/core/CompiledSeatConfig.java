@@ -0,0 +1,525 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+import static com.edp2021c1.randomseatgenerator.core.NamePool.POOL;
+import static com.edp2021c1.randomseatgenerator.core.SeatTable.EMPTY_SEAT_PLACEHOLDER;
+
+/**
+ * Compiled form of a {@link SeatConfig}, used on the hot path of generating seat tables.
+ * <p>
+ * Names are mapped to dense {@code int} IDs once, in the order of {@link SeatConfig#names()},
+ * so that a seat table is stored as an {@code int[]} of IDs with an inverse {@code int[]} of positions,
+ * and is checked without hashing or comparing any string.
+ * Strings are only used again when the result is turned into a {@link SeatTable}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class CompiledSeatConfig {
+
+    /**
+     * ID of an empty seat, or position of a person not in the seat table.
+     */
+    public static final int EMPTY = -1;
+
+    /**
+     * Result of {@link #violation(int[], int[])} if the seat table is valid.
+     */
+    public static final int VALID = -1;
+
+    /**
+     * The config compiled.
+     */
+    @Getter
+    private final SeatConfig config;
+
+    @Getter
+    private final int rowCount;
+
+    @Getter
+    private final int columnCount;
+
+    @Getter
+    private final int seatNum;
+
+    @Getter
+    private final boolean lucky;
+
+    /**
+     * Count of people in the name list.
+     */
+    @Getter
+    private final int peopleNum;
+
+    /**
+     * Count of people that take a seat, which is {@link #peopleNum} minus the lucky person.
+     */
+    @Getter
+    private final int peopleInSeat;
+
+    /**
+     * Count of people in the last row if it is not full, 0 otherwise.
+     */
+    @Getter
+    private final int peopleLeft;
+
+    /**
+     * Count of people shuffled together in each band of {@code random_between_rows} rows.
+     */
+    @Getter
+    private final int randomPeopleCount;
+
+    /**
+     * Index of the first person that may be chosen as the lucky person.
+     */
+    @Getter
+    private final int luckyPersonOriginIndex;
+
+    /**
+     * Names indexed by ID.
+     */
+    private final String[] names;
+
+    /**
+     * IDs in {@link NamePool#POOL} indexed by ID, the last of which is of {@link SeatTable#EMPTY_SEAT_PLACEHOLDER}.
+     * <p>
+     * The names are only interned when the first seat table is made,
+     * since names are never removed from the pool, and configs are also compiled only to be checked.
+     */
+    private volatile int[] poolIds;
+
+    /**
+     * Problems proved by {@link FeasibilityAnalyzer}, null if not analyzed yet.
+     */
+    private volatile List<String> infeasibility;
+
+    private final Map<String, Integer> ids;
+
+    private final BitSet groupLeaders;
+
+    /**
+     * IDs of both people in each separated pair, pairs containing unknown names and repeated pairs excluded.
+     */
+    private final int[] pairFirst, pairLast;
+
+    private final int[][] partners;
+
+    /**
+     * Index of the pair of each partner in {@link #partners}.
+     */
+    private final int[][] partnerPairs;
+
+    private final int[] availableLastRowPos;
+
+    /**
+     * Neighbours of each seat under the adjacency rule of the config.
+     */
+    @Getter
+    private final NeighbourTable neighbours;
+
+    CompiledSeatConfig(final SeatConfig config) throws IllegalConfigException {
+        this.config = config;
+
+        // 获取配置
+        rowCount = config.rowCount();
+        columnCount = config.columnCount();
+        lucky = config.lucky();
+        val nameList        = config.names();
+        val groupLeaderList = config.groupLeaders();
+
+        peopleNum = nameList.size();
+        peopleInSeat = peopleNum - (lucky ? 1 : 0);
+
+        // 防止行数过多引发死循环
+        if (rowCount > Math.ceil((double) peopleInSeat / columnCount)) {
+            throw new IllegalConfigException("Too many seat with row count " + rowCount);
+        }
+
+        // 防止组长数量不足引发死循环
+        if (groupLeaderList.size() < columnCount) {
+            throw new IllegalConfigException("Not enough group leader for " + columnCount + " column(s)");
+        }
+
+        seatNum = rowCount * columnCount;
+
+        if (seatNum < peopleNum) {
+            throw new IllegalConfigException("Too many people and not enough seat");
+        }
+
+        peopleLeft = peopleInSeat % columnCount;
+        randomPeopleCount = Math.min(columnCount * config.randomBetweenRows(), peopleInSeat - peopleLeft);
+        luckyPersonOriginIndex = peopleNum - randomPeopleCount - peopleLeft;
+
+        val disabledLastRowPos = config.disabledLastRowPos();
+        val available          = new int[columnCount];
+        var availableCount     = 0;
+        for (var i = 1; i <= columnCount; i++) {
+            if (!disabledLastRowPos.contains(i)) {
+                available[availableCount++] = i;
+            }
+        }
+        if (availableCount < peopleLeft) {
+            throw new IllegalConfigException("Available last row seat not enough");
+        }
+        availableLastRowPos = Arrays.copyOf(available, availableCount);
+        neighbours = NeighbourTable.of(config.adjacencyRule(), rowCount, columnCount);
+
+        // 将名字映射为编号
+        names = new String[peopleNum];
+        ids = HashMap.newHashMap(peopleNum);
+        val leaderSet = new HashSet<>(groupLeaderList);
+        groupLeaders = new BitSet(peopleNum);
+        for (var i = 0; i < peopleNum; i++) {
+            names[i] = nameList.get(i);
+            ids.putIfAbsent(names[i], i);
+            if (leaderSet.contains(names[i])) {
+                groupLeaders.set(i);
+            }
+        }
+
+        val pairs     = config.separatedPairs();
+        val first     = new int[pairs.size()];
+        val last      = new int[pairs.size()];
+        val degree    = new int[peopleNum];
+        val added     = HashSet.<Long>newHashSet(pairs.size());
+        var pairCount = 0;
+        for (val pair : pairs) {
+            val a = ids.get(pair.getFirst());
+            val b = ids.get(pair.getLast());
+            // 忽略重复的组合
+            if (a == null || b == null || a.equals(b) || !added.add((long) Math.min(a, b) * peopleNum + Math.max(a, b))) {
+                continue;
+            }
+            first[pairCount] = a;
+            last[pairCount] = b;
+            pairCount++;
+            degree[a]++;
+            degree[b]++;
+        }
+        pairFirst = Arrays.copyOf(first, pairCount);
+        pairLast = Arrays.copyOf(last, pairCount);
+
+        partners = new int[peopleNum][];
+        partnerPairs = new int[peopleNum][];
+        for (var i = 0; i < peopleNum; i++) {
+            partners[i] = new int[degree[i]];
+            partnerPairs[i] = new int[degree[i]];
+        }
+        Arrays.fill(degree, 0);
+        for (var i = 0; i < pairCount; i++) {
+            partnerPairs[pairFirst[i]][degree[pairFirst[i]]] = i;
+            partners[pairFirst[i]][degree[pairFirst[i]]++] = pairLast[i];
+            partnerPairs[pairLast[i]][degree[pairLast[i]]] = i;
+            partners[pairLast[i]][degree[pairLast[i]]++] = pairFirst[i];
+        }
+    }
+
+    /**
+     * Checks and compiles a config, reusing the compiled config if the config keeps it.
+     *
+     * @param config to compile
+     *
+     * @return the compiled config
+     *
+     * @throws IllegalConfigException if config is null or is illegal,
+     *                                or no seat table with the given row and column count can hold the people
+     */
+    public static CompiledSeatConfig of(final SeatConfig config) throws IllegalConfigException {
+        if (config == null) {
+            throw new IllegalConfigException("Config cannot be null");
+        }
+        return config.compile();
+    }
+
+    /**
+     * Returns the name of a person.
+     *
+     * @param id of the person
+     *
+     * @return name of the person
+     */
+    public String name(final int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the ID of a name.
+     *
+     * @param name of the person
+     *
+     * @return ID of the first person with the name, {@link #EMPTY} if not found
+     */
+    public int id(final String name) {
+        return ids.getOrDefault(name, EMPTY);
+    }
+
+    /**
+     * Returns whether a person is a group leader.
+     *
+     * @param id of the person
+     *
+     * @return whether the person is a group leader
+     */
+    public boolean isGroupLeader(final int id) {
+        return id >= 0 && groupLeaders.get(id);
+    }
+
+    /**
+     * Returns the IDs of the people who must be separated from a person.
+     *
+     * @param id of the person
+     *
+     * @return the IDs of the partners, must not be modified
+     */
+    int[] partners(final int id) {
+        return partners[id];
+    }
+
+    /**
+     * Returns the indexes of the separated pairs of a person, in the same order as {@link #partners(int)}.
+     *
+     * @param id of the person
+     *
+     * @return the indexes of the pairs, must not be modified
+     */
+    int[] partnerPairs(final int id) {
+        return partnerPairs[id];
+    }
+
+    /**
+     * Returns the available last row positions, from 1 to column count.
+     *
+     * @return a copy of the available last row positions
+     */
+    public int[] availableLastRowPos() {
+        return availableLastRowPos.clone();
+    }
+
+    /**
+     * Returns count of available last row positions.
+     *
+     * @return count of available last row positions
+     */
+    public int availableLastRowPosCount() {
+        return availableLastRowPos.length;
+    }
+
+    /**
+     * Returns an available last row position.
+     *
+     * @param index of the position
+     *
+     * @return the available last row position, from 1 to column count
+     */
+    public int availableLastRowPos(final int index) {
+        return availableLastRowPos[index];
+    }
+
+    /**
+     * Returns if the seat table is valid, in O(seats + pairs).
+     *
+     * @param seats     IDs of the people on each seat, {@link #EMPTY} for an empty seat
+     * @param positions seat of each person, {@link #EMPTY} if not in the seat table
+     *
+     * @return if the seat table is valid
+     */
+    public boolean check(final int[] seats, final int[] positions) {
+        return violation(seats, positions) == VALID;
+    }
+
+    /**
+     * Returns the first rule the seat table breaks, in O(seats + pairs).
+     * <p>
+     * A violation {@code v} less than {@link #columnCount} means column {@code v} has no group leader,
+     * otherwise it means separated pair {@code v - columnCount} is not separated.
+     *
+     * @param seats     IDs of the people on each seat, {@link #EMPTY} for an empty seat
+     * @param positions seat of each person, {@link #EMPTY} if not in the seat table
+     *
+     * @return the first violation, {@link #VALID} if the seat table is valid
+     *
+     * @see #describeViolation(int)
+     */
+    public int violation(final int[] seats, final int[] positions) {
+        // 检查每列是否都有组长
+        for (var i = 0; i < columnCount; i++) {
+            var found = false;
+            for (var j = i; j < seatNum; j += columnCount) {
+                if (isGroupLeader(seats[j])) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return i;
+            }
+        }
+        // 检查是否分开
+        for (var i = 0; i < pairFirst.length; i++) {
+            val a = positions[pairFirst[i]];
+            val b = positions[pairLast[i]];
+            if (a != EMPTY && b != EMPTY && neighbours.adjacent(a, b)) {
+                return columnCount + i;
+            }
+        }
+        return VALID;
+    }
+
+    /**
+     * Returns count of different violations, which is column count plus count of separated pairs.
+     *
+     * @return count of different violations
+     */
+    public int violationCount() {
+        return columnCount + pairFirst.length;
+    }
+
+    /**
+     * Returns the index of the violation of a separated pair.
+     *
+     * @param pair index of the pair
+     *
+     * @return the violation
+     */
+    public int pairViolation(final int pair) {
+        return columnCount + pair;
+    }
+
+    /**
+     * Describes a violation.
+     *
+     * @param violation returned by {@link #violation(int[], int[])}
+     *
+     * @return description of the violation
+     */
+    public String describeViolation(final int violation) {
+        if (violation < columnCount) {
+            return "No group leader in column " + (violation + 1);
+        }
+        val pair = violation - columnCount;
+        return "%s and %s not separated".formatted(names[pairFirst[pair]], names[pairLast[pair]]);
+    }
+
+    /**
+     * Fills in the positions of people, which is the inverse of the seats.
+     *
+     * @param seats     IDs of the people on each seat, {@link #EMPTY} for an empty seat
+     * @param positions to fill, must have a length of at least {@link #peopleNum}
+     */
+    public void fillPositions(final int[] seats, final int[] positions) {
+        Arrays.fill(positions, 0, peopleNum, EMPTY);
+        for (var i = seats.length - 1; i >= 0; i--) {
+            if (seats[i] != EMPTY) {
+                positions[seats[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the people on each seat of a seat table made of names.
+     *
+     * @param seatTable names on each seat
+     *
+     * @return IDs of the people on each seat, of a length of {@link #seatNum}
+     */
+    public int[] seatsOf(final List<String> seatTable) {
+        val seats = new int[seatNum];
+        Arrays.fill(seats, EMPTY);
+        for (var i = Math.min(seatNum, seatTable.size()) - 1; i >= 0; i--) {
+            seats[i] = id(seatTable.get(i));
+        }
+        return seats;
+    }
+
+    /**
+     * Returns the problems proved by {@link FeasibilityAnalyzer}, analyzing the config first if not yet.
+     *
+     * @param analyzer proves the problems
+     *
+     * @return the problems, empty if none is proved
+     */
+    List<String> infeasibility(final Function<CompiledSeatConfig, List<String>> analyzer) {
+        var res = infeasibility;
+        if (res == null) {
+            // 并发时至多重复分析一次，结果相同
+            res = List.copyOf(analyzer.apply(this));
+            infeasibility = res;
+        }
+        return res;
+    }
+
+    /**
+     * Returns {@link #poolIds}, interning the names first if not yet.
+     */
+    private int[] poolIds() {
+        var res = poolIds;
+        if (res == null) {
+            // 并发时至多重复查找一次，名字池保证编号相同
+            res = new int[peopleNum + 1];
+            for (var i = 0; i < peopleNum; i++) {
+                res[i] = POOL.intern(names[i]);
+            }
+            res[peopleNum] = POOL.intern(EMPTY_SEAT_PLACEHOLDER);
+            poolIds = res;
+        }
+        return res;
+    }
+
+    /**
+     * Turns the seats into cells in {@link NamePool#POOL}, and randomly marks one group leader in each column.
+     *
+     * @param seats IDs of the people on each seat, must be valid
+     * @param rd    random service used to choose the group leaders
+     *
+     * @return cells of each seat
+     *
+     * @see NamePool#cell(int)
+     */
+    int[] toCells(final int[] seats, final RandomGenerator rd) {
+        val ids = poolIds();
+        val res = new int[seatNum];
+        for (var i = 0; i < seatNum; i++) {
+            res[i] = ids[seats[i] == EMPTY ? peopleNum : seats[i]];
+        }
+
+        // 每列随机选出一名组长
+        val columnLeaders = new int[rowCount];
+        for (var i = 0; i < columnCount; i++) {
+            var count = 0;
+            for (var j = i; j < seatNum; j += columnCount) {
+                if (isGroupLeader(seats[j])) {
+                    columnLeaders[count++] = j;
+                }
+            }
+            val pos = columnLeaders[rd.nextInt(count)];
+            res[pos] = ~res[pos];
+        }
+        return res;
+    }
+
+}
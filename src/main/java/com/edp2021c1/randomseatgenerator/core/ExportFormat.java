@@ -0,0 +1,137 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import lombok.Getter;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Formats a seat table can be exported to, each with the writer of its own.
+ *
+ * @author Calboot
+ * @see SeatTableExporter#export(SeatTable, Path, ExportFormat, boolean)
+ * @since 1.6.0
+ */
+public enum ExportFormat {
+
+    /**
+     * Excel workbook.
+     */
+    XLSX(".xlsx") {
+        @Override
+        void write(final SeatTable seatTable, final Path path) {
+            writeExcel(seatTable, path, ExcelTypeEnum.XLSX);
+        }
+    },
+    /**
+     * Excel 97-2004 workbook.
+     */
+    XLS(".xls") {
+        @Override
+        void write(final SeatTable seatTable, final Path path) {
+            writeExcel(seatTable, path, ExcelTypeEnum.XLS);
+        }
+    },
+    /**
+     * Comma-separated values.
+     */
+    CSV(".csv") {
+        @Override
+        void write(final SeatTable seatTable, final Path path) throws IOException {
+            SeatTableExporter.writeCsv(seatTable, path);
+        }
+    },
+    /**
+     * JSON Lines, see {@link SeatTableSerializer}.
+     */
+    JSON_LINES(SeatTableSerializer.JSON_LINES_SUFFIX) {
+        @Override
+        void write(final SeatTable seatTable, final Path path) throws IOException {
+            SeatTableSerializer.writeJsonLines(List.of(seatTable).iterator(), path);
+        }
+    },
+    /**
+     * Binary format, see {@link SeatTableSerializer}.
+     */
+    BINARY(SeatTableSerializer.BINARY_SUFFIX) {
+        @Override
+        void write(final SeatTable seatTable, final Path path) throws IOException {
+            SeatTableSerializer.writeBinary(List.of(seatTable), path);
+        }
+    };
+
+    private static final ExportFormat[] values = values();
+
+    /**
+     * Suffix of the file name, including the dot.
+     */
+    @Getter
+    private final String suffix;
+
+    ExportFormat(final String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * Returns the format of a file from the extension of its name, ignoring case.
+     *
+     * @param path of the file
+     *
+     * @return the format, {@link #XLSX} if the extension is unknown
+     */
+    public static ExportFormat of(final Path path) {
+        val fileName = path.getFileName();
+        if (fileName == null) {
+            return XLSX;
+        }
+        val name = fileName.toString().toLowerCase(Locale.ROOT);
+        for (val format : values) {
+            if (name.endsWith(format.suffix)) {
+                return format;
+            }
+        }
+        return XLSX;
+    }
+
+    private static void writeExcel(final SeatTable seatTable, final Path path, final ExcelTypeEnum type) {
+        // 类型显式指定，临时文件的扩展名不影响格式
+        try (val writer = SeatTableExporter.openExcelWriter(path.toFile(), type)) {
+            SeatTableExporter.writeExcel(seatTable, writer, EasyExcel.writerSheet("座位表-%tF".formatted(new Date())).build());
+        }
+    }
+
+    /**
+     * Writes a seat table to a file in this format, replacing the file.
+     *
+     * @param seatTable to write
+     * @param path      of the file
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    abstract void write(SeatTable seatTable, Path path) throws IOException;
+
+}
@@ -0,0 +1,396 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.edp2021c1.randomseatgenerator.core.CompiledSeatConfig.EMPTY;
+
+/**
+ * Static analyzer that tells whether a config can be satisfied before generating.
+ * <p>
+ * Every person can only sit in the seats of their band, that is, the {@code random_between_rows} rows
+ * they are shuffled in, so the analyzer works on bands instead of single seats:
+ * <ul>
+ *     <li>columns are matched to the bands with group leaders, to see if every column can get a group leader;</li>
+ *     <li>every person is checked against the people to separate from,
+ *     to see if there is a seat leaving enough seats in the partners' bands away from them.</li>
+ * </ul>
+ * These are necessary conditions only, so a config passing them may still be infeasible,
+ * and the acceptance probability of reshuffling can be estimated by sampling.
+ * If the lucky option is on, a config is infeasible only if it is infeasible whoever the lucky person is.
+ *
+ * @author Calboot
+ * @see FeasibilityReport
+ * @since 1.6.0
+ */
+public final class FeasibilityAnalyzer {
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private FeasibilityAnalyzer() {
+    }
+
+    /**
+     * Analyzes a config without sampling.
+     *
+     * @param config to analyze
+     *
+     * @return the report
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     */
+    public static FeasibilityReport analyze(final SeatConfig config) throws IllegalConfigException {
+        return analyze(config, 0);
+    }
+
+    /**
+     * Analyzes a config, and estimates the acceptance probability by sampling if it is not proved infeasible.
+     *
+     * @param config  to analyze
+     * @param samples count of seat tables to sample
+     *
+     * @return the report
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     */
+    public static FeasibilityReport analyze(final SeatConfig config, final int samples) throws IllegalConfigException {
+        return analyze(CompiledSeatConfig.of(config), samples);
+    }
+
+    /**
+     * Checks a compiled config without sampling, used by the generators before generating.
+     *
+     * @param compiled config to check
+     *
+     * @throws IllegalConfigException if the config is proved infeasible
+     */
+    static void requireFeasible(final CompiledSeatConfig compiled) throws IllegalConfigException {
+        val report = analyze(compiled, 0);
+        if (report.isInfeasible()) {
+            throw report.toException();
+        }
+    }
+
+    /**
+     * Analyzes a compiled config.
+     *
+     * @param compiled config to analyze
+     * @param samples  count of seat tables to sample
+     *
+     * @return the report
+     */
+    static FeasibilityReport analyze(final CompiledSeatConfig compiled, final int samples) {
+        // 同一编译结果只分析一次
+        val problems = compiled.infeasibility(c -> new Bands(c).prove());
+        if (!problems.isEmpty()) {
+            return new FeasibilityReport(FeasibilityReport.Verdict.INFEASIBLE, problems, 0, 0);
+        }
+
+        var accepted = 0;
+        if (samples > 0) {
+            val attempt = new SeatTableGeneratorAndCheckerImpl.Attempt(compiled);
+            val rd      = new SplittableRandom(0);
+            for (var i = 0; i < samples; i++) {
+                if (attempt.next(rd)) {
+                    accepted++;
+                }
+            }
+        }
+        return new FeasibilityReport(
+                accepted > 0 ? FeasibilityReport.Verdict.FEASIBLE : FeasibilityReport.Verdict.UNKNOWN,
+                problems,
+                Math.max(samples, 0),
+                accepted
+        );
+    }
+
+    /**
+     * Layout of the bands, laid out in the same way as the generators do.
+     */
+    private static final class Bands {
+
+        private final CompiledSeatConfig compiled;
+
+        private final int columnCount;
+
+        private final int bandSize;
+
+        private final int bandCount;
+
+        /**
+         * Seats of each band.
+         */
+        private final int[][] bandSeats;
+
+        /**
+         * Whether a band has a seat in a column, indexed by {@code column * bandCount + band}.
+         */
+        private final boolean[] bandColumns;
+
+        /**
+         * Band of each seat, -1 if no one sits there.
+         */
+        private final int[] seatBand;
+
+        private final NeighbourTable neighbours;
+
+        private final int[] personBand;
+
+        private final int[] bandLeaders;
+
+        private final int[] matchedBand, bandLoad;
+
+        private final boolean[] visited;
+
+        /**
+         * Count of partners in each band, used when checking a person.
+         */
+        private final int[] partnerCount;
+
+        /**
+         * Bands with a partner, the first {@link #partnerBandCount} of which are used.
+         */
+        private final int[] partnerBands;
+
+        private int partnerBandCount;
+
+        private Bands(final CompiledSeatConfig compiled) {
+            this.compiled = compiled;
+            columnCount = compiled.getColumnCount();
+
+            val seatNum      = compiled.getSeatNum();
+            val peopleInSeat = compiled.getPeopleInSeat();
+            val peopleLeft   = compiled.getPeopleLeft();
+            val regularCount = peopleLeft == 0 ? Math.min(peopleInSeat, seatNum) : seatNum - columnCount;
+            bandSize = compiled.getRandomPeopleCount() > 0 ? compiled.getRandomPeopleCount() : Math.max(peopleInSeat, 1);
+            bandCount = (peopleInSeat + bandSize - 1) / bandSize;
+
+            seatBand = new int[seatNum];
+            Arrays.fill(seatBand, -1);
+            for (var i = 0; i < regularCount; i++) {
+                seatBand[i] = i / bandSize;
+            }
+            if (peopleLeft != 0) {
+                for (var i = 0; i < compiled.availableLastRowPosCount(); i++) {
+                    seatBand[seatNum - columnCount + compiled.availableLastRowPos(i) - 1] = regularCount / bandSize;
+                }
+            }
+
+            val sizes = new int[bandCount];
+            for (val b : seatBand) {
+                if (b >= 0) {
+                    sizes[b]++;
+                }
+            }
+            bandSeats = new int[bandCount][];
+            for (var b = 0; b < bandCount; b++) {
+                bandSeats[b] = new int[sizes[b]];
+                sizes[b] = 0;
+            }
+            bandColumns = new boolean[columnCount * bandCount];
+            for (var s = 0; s < seatNum; s++) {
+                val b = seatBand[s];
+                if (b >= 0) {
+                    bandSeats[b][sizes[b]++] = s;
+                    bandColumns[s % columnCount * bandCount + b] = true;
+                }
+            }
+
+            neighbours = compiled.getNeighbours();
+
+            personBand = new int[compiled.getPeopleNum()];
+            bandLeaders = new int[bandCount];
+            matchedBand = new int[columnCount];
+            bandLoad = new int[bandCount];
+            visited = new boolean[bandCount];
+            partnerCount = new int[bandCount];
+            partnerBands = new int[bandCount];
+        }
+
+        /**
+         * Returns the problems found whoever the lucky person is, empty if none is proved.
+         */
+        private List<String> prove() {
+            if (!compiled.isLucky()) {
+                return prove(EMPTY);
+            }
+            List<String> common = null;
+            for (var luckyId = compiled.getLuckyPersonOriginIndex(); luckyId < compiled.getPeopleNum(); luckyId++) {
+                val problems = prove(luckyId);
+                if (problems.isEmpty()) {
+                    return problems;
+                }
+                if (common == null) {
+                    common = new ArrayList<>(new LinkedHashSet<>(problems));
+                } else {
+                    common.retainAll(problems);
+                }
+            }
+            if (common == null || common.isEmpty()) {
+                return List.of("No choice of the lucky person satisfies the config");
+            }
+            return common;
+        }
+
+        /**
+         * Returns the problems found with the given lucky person.
+         */
+        private List<String> prove(final int luckyId) {
+            val problems  = new ArrayList<String>();
+            val peopleNum = compiled.getPeopleNum();
+
+            Arrays.fill(bandLeaders, 0);
+            for (var p = 0; p < peopleNum; p++) {
+                if (p == luckyId) {
+                    personBand[p] = -1;
+                    continue;
+                }
+                personBand[p] = (luckyId == EMPTY || p < luckyId ? p : p - 1) / bandSize;
+                if (compiled.isGroupLeader(p)) {
+                    bandLeaders[personBand[p]]++;
+                }
+            }
+
+            // 组长与列的二分匹配
+            var matched = 0;
+            Arrays.fill(matchedBand, -1);
+            Arrays.fill(bandLoad, 0);
+            for (var c = 0; c < columnCount; c++) {
+                var reachable = false;
+                for (var b = 0; b < bandCount; b++) {
+                    reachable |= bandLeaders[b] > 0 && bandColumns[c * bandCount + b];
+                }
+                if (!reachable) {
+                    problems.add("No group leader can sit in column " + (c + 1));
+                    continue;
+                }
+                Arrays.fill(visited, false);
+                if (match(c)) {
+                    matched++;
+                }
+            }
+            if (problems.isEmpty() && matched < columnCount) {
+                problems.add("Group leaders can cover at most %d of %d column(s)".formatted(matched, columnCount));
+            }
+
+            // 检查每个人能否与所有需要分开的人分开
+            for (var p = 0; p < peopleNum; p++) {
+                val band = personBand[p];
+                if (band < 0 || compiled.partners(p).length == 0) {
+                    continue;
+                }
+                Arrays.fill(partnerCount, 0);
+                partnerBandCount = 0;
+                var pairProblem = false;
+                for (val q : compiled.partners(p)) {
+                    if (personBand[q] < 0) {
+                        continue;
+                    }
+                    if (partnerCount[personBand[q]]++ == 0) {
+                        partnerBands[partnerBandCount++] = personBand[q];
+                    }
+                    if (p < q && !separable(band, personBand[q], 1)) {
+                        problems.add("\"%s\" and \"%s\" cannot be separated".formatted(compiled.name(p), compiled.name(q)));
+                        pairProblem = true;
+                    }
+                }
+                if (!pairProblem && !separable(band)) {
+                    problems.add("\"%s\" cannot be separated from all of the people to separate from".formatted(compiled.name(p)));
+                }
+            }
+            return problems;
+        }
+
+        /**
+         * Returns the count of seats of a band that are neither the given seat nor next to it.
+         */
+        private int farSeats(final int seat, final int band) {
+            var res = bandSeats[band].length - (seatBand[seat] == band ? 1 : 0);
+            for (var i = neighbours.neighbourCount(seat) - 1; i >= 0; i--) {
+                if (seatBand[neighbours.neighbour(seat, i)] == band) {
+                    res--;
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Returns whether a seat of a band leaves at least {@code count} seats of another band away from it.
+         */
+        private boolean separable(final int band, final int otherBand, final int count) {
+            for (val s : bandSeats[band]) {
+                if (farSeats(s, otherBand) >= count) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns whether a seat of a band leaves enough seats away from it for the partners counted in {@link #partnerCount}.
+         */
+        private boolean separable(final int band) {
+            for (val s : bandSeats[band]) {
+                var ok = true;
+                for (var i = 0; i < partnerBandCount && ok; i++) {
+                    ok = farSeats(s, partnerBands[i]) >= partnerCount[partnerBands[i]];
+                }
+                if (ok) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Tries to match a column to a band with group leaders left, moving other columns to other bands if needed.
+         */
+        private boolean match(final int column) {
+            for (var b = 0; b < bandCount; b++) {
+                if (visited[b] || bandLeaders[b] == 0 || !bandColumns[column * bandCount + b]) {
+                    continue;
+                }
+                visited[b] = true;
+                if (bandLoad[b] < bandLeaders[b]) {
+                    matchedBand[column] = b;
+                    bandLoad[b]++;
+                    return true;
+                }
+                for (var c = 0; c < columnCount; c++) {
+                    if (matchedBand[c] == b && match(c)) {
+                        matchedBand[column] = b;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of {@link FeasibilityAnalyzer}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class FeasibilityReport {
+
+    /**
+     * Conclusion of the analysis.
+     */
+    @Getter
+    private final Verdict verdict;
+
+    /**
+     * Reasons why no seat table satisfies the config, empty unless {@link #verdict} is {@link Verdict#INFEASIBLE}.
+     */
+    @Getter
+    private final List<String> problems;
+
+    /**
+     * Count of seat tables sampled to estimate the acceptance probability.
+     */
+    @Getter
+    private final int samples;
+
+    /**
+     * Count of valid seat tables among the samples.
+     */
+    @Getter
+    private final int acceptedSamples;
+
+    FeasibilityReport(final Verdict verdict, final List<String> problems, final int samples, final int acceptedSamples) {
+        this.verdict = verdict;
+        this.problems = List.copyOf(problems);
+        this.samples = samples;
+        this.acceptedSamples = acceptedSamples;
+    }
+
+    /**
+     * Returns whether no seat table satisfies the config.
+     *
+     * @return whether the config is proved infeasible
+     */
+    public boolean isInfeasible() {
+        return verdict == Verdict.INFEASIBLE;
+    }
+
+    /**
+     * Returns the estimated probability that a seat table reshuffled by {@link SeatTableGeneratorAndCheckerImpl}
+     * is valid.
+     *
+     * @return the estimated acceptance probability, {@link Double#NaN} if not sampled
+     */
+    public double acceptanceProbability() {
+        return samples == 0 ? Double.NaN : (double) acceptedSamples / samples;
+    }
+
+    /**
+     * Returns an exception describing the problems.
+     *
+     * @return an exception describing the problems
+     */
+    public IllegalConfigException toException() {
+        val causes = new ArrayList<IllegalConfigException>(problems.size() + 1);
+        causes.add(new IllegalConfigException("No seat table satisfies the config, please check your config"));
+        for (val problem : problems) {
+            causes.add(new IllegalConfigException(problem));
+        }
+        return new IllegalConfigException(causes);
+    }
+
+    @Override
+    public String toString() {
+        val str = new StringBuilder("Verdict: ").append(verdict);
+        for (val problem : problems) {
+            str.append(System.lineSeparator()).append(problem);
+        }
+        if (samples > 0) {
+            str.append(System.lineSeparator())
+                    .append("Acceptance probability: %d/%d".formatted(acceptedSamples, samples));
+        }
+        return str.toString();
+    }
+
+    /**
+     * Conclusions of the analysis.
+     */
+    public enum Verdict {
+        /**
+         * A valid seat table has been found.
+         */
+        FEASIBLE,
+        /**
+         * No seat table satisfies the config.
+         */
+        INFEASIBLE,
+        /**
+         * Nothing is proved.
+         */
+        UNKNOWN
+    }
+
+}
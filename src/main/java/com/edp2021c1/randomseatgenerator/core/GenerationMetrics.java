@@ -0,0 +1,197 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
+
+/**
+ * Metrics of all the generations made by the built-in generators,
+ * including attempts, rejection reasons, allocations and latencies.
+ * <p>
+ * Each generation is also written to the log in debug level, so that configs can be tuned
+ * by checking which rules reject the most candidates.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class GenerationMetrics {
+
+    /**
+     * The global instance.
+     */
+    public static final GenerationMetrics METRICS = new GenerationMetrics();
+
+    /**
+     * Max count of different rejection reasons kept, the rest are counted as {@link #OTHER_REASONS}.
+     */
+    private static final int MAX_REASON_COUNT = 1024;
+
+    private static final String OTHER_REASONS = "Other reasons";
+
+    private final LongAdder generations = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder attempts = new LongAdder();
+
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private volatile GenerationRecord last;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private GenerationMetrics() {
+    }
+
+    /**
+     * Records a generation.
+     *
+     * @param record of the generation
+     */
+    void record(final GenerationRecord record) {
+        generations.increment();
+        if (!record.isSuccess()) {
+            failures.increment();
+        }
+        attempts.add(record.getAttempts());
+        if (record.getAllocatedBytes() > 0) {
+            allocatedBytes.add(record.getAllocatedBytes());
+        }
+        for (val e : record.getRejections().entrySet()) {
+            var reason = e.getKey();
+            if (rejections.size() >= MAX_REASON_COUNT && !rejections.containsKey(reason)) {
+                reason = OTHER_REASONS;
+            }
+            rejections.computeIfAbsent(reason, k -> new LongAdder()).add(e.getValue());
+        }
+        latency.record(record.getWallNanos());
+        last = record;
+
+        if (LOG.isOpen()) {
+            LOG.debug(record.toString());
+        }
+    }
+
+    /**
+     * Returns count of generations recorded.
+     *
+     * @return count of generations
+     */
+    public long getGenerations() {
+        return generations.sum();
+    }
+
+    /**
+     * Returns count of generations that did not generate a seat table.
+     *
+     * @return count of failed generations
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns count of attempts of all the generations.
+     *
+     * @return count of attempts
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Returns bytes allocated by all the generations, if supported by the JVM.
+     *
+     * @return bytes allocated
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * Returns the last generation recorded.
+     *
+     * @return the last generation, null if nothing is recorded
+     */
+    public GenerationRecord getLast() {
+        return last;
+    }
+
+    /**
+     * Returns count of rejected candidates by reason.
+     *
+     * @return an unmodifiable map of the rejection reasons, the most frequent first
+     */
+    public Map<String, Long> rejections() {
+        val res = new LinkedHashMap<String, Long>();
+        rejections.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .forEachOrdered(e -> res.put(e.getKey(), e.getValue()));
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Returns latencies of the generations in the last minute.
+     *
+     * @return a snapshot of the latency histogram
+     */
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    /**
+     * Clears all the metrics.
+     */
+    public void reset() {
+        generations.reset();
+        failures.reset();
+        attempts.reset();
+        allocatedBytes.reset();
+        rejections.clear();
+        latency.reset();
+        last = null;
+    }
+
+    @Override
+    public String toString() {
+        return "%d generation(s), %d failed, %d attempt(s), allocated %dKB, latency: %s".formatted(
+                getGenerations(),
+                getFailures(),
+                getAttempts(),
+                getAllocatedBytes() >>> 10,
+                latency()
+        );
+    }
+
+}
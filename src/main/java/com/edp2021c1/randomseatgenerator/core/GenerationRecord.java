@@ -0,0 +1,114 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of a single generation, recorded in {@link GenerationMetrics}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+@Getter
+public final class GenerationRecord {
+
+    /**
+     * Simple name of the generator class.
+     */
+    private final String generator;
+
+    /**
+     * Seed used, as shown in the seat table.
+     */
+    private final String seed;
+
+    /**
+     * Whether a seat table is generated.
+     */
+    private final boolean success;
+
+    /**
+     * Count of attempts made, which are reshuffles or restarts depending on the generator.
+     */
+    private final long attempts;
+
+    /**
+     * Wall time of the generation in nanoseconds.
+     */
+    private final long wallNanos;
+
+    /**
+     * Bytes allocated by the threads generating, -1 if not supported by the JVM.
+     */
+    private final long allocatedBytes;
+
+    /**
+     * Count of rejected candidates by reason, the most frequent first.
+     */
+    private final Map<String, Long> rejections;
+
+    GenerationRecord(
+            final String generator,
+            final String seed,
+            final boolean success,
+            final long attempts,
+            final long wallNanos,
+            final long allocatedBytes,
+            final Map<String, Long> rejections
+    ) {
+        this.generator = generator;
+        this.seed = seed;
+        this.success = success;
+        this.attempts = attempts;
+        this.wallNanos = wallNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.rejections = rejections;
+    }
+
+    @Override
+    public String toString() {
+        val res = new StringBuilder("%s %s with seed %s after %d attempt(s) in %.3fms".formatted(
+                generator,
+                success ? "generated" : "failed",
+                seed,
+                attempts,
+                wallNanos / 1e6
+        ));
+        if (allocatedBytes >= 0) {
+            res.append(", allocated %dKB".formatted(allocatedBytes >>> 10));
+        }
+        if (!rejections.isEmpty()) {
+            // 只列出最常见的几个原因
+            res.append(", rejected by: ").append(rejections.entrySet().stream()
+                    .limit(5)
+                    .map(e -> e.getKey() + " x" + e.getValue())
+                    .collect(Collectors.joining("; ")));
+            if (rejections.size() > 5) {
+                res.append("; and %d more".formatted(rejections.size() - 5));
+            }
+        }
+        return res.toString();
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.edp2021c1.randomseatgenerator.core.GenerationMetrics.METRICS;
+
+/**
+ * Counters of a single generation on a single thread, recorded in {@link GenerationMetrics} when finished.
+ * <p>
+ * Rejections are counted in an array indexed by violation, so counting costs no allocation,
+ * and are only described when the generation is finished.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class GenerationStats {
+
+    private static final com.sun.management.ThreadMXBean threadBean = threadBean();
+
+    private final CompiledSeatConfig compiled;
+
+    /**
+     * Count of rejections by violation, with the last one counting rejections
+     * because group leaders cannot cover every column any more.
+     */
+    private final long[] rejections;
+
+    private final long startNanos;
+
+    private final long startAllocatedBytes;
+
+    private long attempts;
+
+    /**
+     * Bytes allocated by the other threads merged.
+     */
+    private long mergedAllocatedBytes;
+
+    /**
+     * Starts counting on the current thread.
+     *
+     * @param compiled config used to generate
+     */
+    GenerationStats(final CompiledSeatConfig compiled) {
+        this.compiled = compiled;
+        rejections = new long[compiled.violationCount() + 1];
+        startNanos = System.nanoTime();
+        startAllocatedBytes = allocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof final com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()
+                && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return threadBean == null ? -1 : threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Counts attempts made.
+     *
+     * @param count of attempts
+     */
+    void attempt(final long count) {
+        attempts += count;
+    }
+
+    /**
+     * Counts a rejected candidate.
+     *
+     * @param violation the candidate breaks, returned by {@link CompiledSeatConfig#violation(int[], int[])}
+     */
+    void reject(final int violation) {
+        rejections[violation]++;
+    }
+
+    /**
+     * Counts a candidate rejected because group leaders cannot cover every column any more.
+     */
+    void rejectLeaders() {
+        rejections[rejections.length - 1]++;
+    }
+
+    /**
+     * Returns bytes allocated by the current thread since counting started.
+     *
+     * @return bytes allocated, -1 if not supported
+     */
+    long allocatedBytesSinceStart() {
+        return threadBean == null ? -1 : allocatedBytes() - startAllocatedBytes;
+    }
+
+    /**
+     * Adds the counts of another thread of the same generation.
+     * <p>
+     * Must be called after the other thread finishes, and its allocations are taken at that moment.
+     *
+     * @param other counts of the other thread
+     * @param otherAllocatedBytes bytes allocated by the other thread, from its {@link #allocatedBytesSinceStart()}
+     */
+    void merge(final GenerationStats other, final long otherAllocatedBytes) {
+        attempts += other.attempts;
+        for (var i = 0; i < rejections.length; i++) {
+            rejections[i] += other.rejections[i];
+        }
+        mergedAllocatedBytes += Math.max(otherAllocatedBytes, 0);
+    }
+
+    /**
+     * Finishes counting and records the generation in {@link GenerationMetrics#METRICS}.
+     *
+     * @param generator used to generate
+     * @param seed      shown in the seat table
+     * @param success   whether a seat table is generated
+     */
+    void finish(final SeatTableGenerator generator, final String seed, final boolean success) {
+        val wallNanos = System.nanoTime() - startNanos;
+        val allocated = allocatedBytesSinceStart();
+
+        // 按次数从多到少排列
+        val reasons = new ArrayList<Integer>();
+        for (var i = 0; i < rejections.length; i++) {
+            if (rejections[i] > 0) {
+                reasons.add(i);
+            }
+        }
+        reasons.sort((a, b) -> Long.compare(rejections[b], rejections[a]));
+        val described = new LinkedHashMap<String, Long>();
+        for (val i : reasons) {
+            described.merge(describe(i), rejections[i], Long::sum);
+        }
+
+        METRICS.record(new GenerationRecord(
+                generator.getClass().getSimpleName(),
+                seed,
+                success,
+                attempts,
+                wallNanos,
+                allocated < 0 ? -1 : allocated + mergedAllocatedBytes,
+                Collections.unmodifiableMap(described)
+        ));
+    }
+
+    private String describe(final int index) {
+        return index == rejections.length - 1
+                ? "Not enough group leader left for every column"
+                : compiled.describeViolation(index);
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling histogram of latencies in nanoseconds, recording only the last {@link #WINDOW_COUNT} windows.
+ * <p>
+ * Like an HDR histogram, values are put into buckets growing exponentially, each split into
+ * {@link #SUB_BUCKET_COUNT} linear sub-buckets, so every value is recorded with a relative error
+ * below {@code 1 / SUB_BUCKET_COUNT} in constant memory, no matter how large it is.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Count of sub-buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKET_COUNT = 16;
+
+    /**
+     * Count of windows kept.
+     */
+    public static final int WINDOW_COUNT = 6;
+
+    /**
+     * Length of each window in nanoseconds.
+     */
+    public static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+
+    private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    /**
+     * Counts of each window, indexed by window and bucket.
+     */
+    private final long[][] counts = new long[WINDOW_COUNT][BUCKET_COUNT];
+
+    /**
+     * Number of the window each row of {@link #counts} belongs to.
+     */
+    private final long[] windows = new long[WINDOW_COUNT];
+
+    private final long origin = System.nanoTime();
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        Arrays.fill(windows, -1);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value non-negative value
+     *
+     * @return index of the bucket
+     */
+    static int indexOf(final long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        val exponent = 63 - Long.numberOfLeadingZeros(value);
+        val shift    = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the lowest value of a bucket.
+     *
+     * @param index of the bucket
+     *
+     * @return lowest value in the bucket
+     */
+    static long lowestOf(final int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        val shift = index / SUB_BUCKET_COUNT - 1;
+        return (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+    }
+
+    /**
+     * Returns the highest value of a bucket.
+     *
+     * @param index of the bucket
+     *
+     * @return highest value in the bucket
+     */
+    static long highestOf(final int index) {
+        return index + 1 == BUCKET_COUNT ? Long.MAX_VALUE : lowestOf(index + 1) - 1;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     */
+    public synchronized void record(final long nanos) {
+        val window = (System.nanoTime() - origin) / WINDOW_NANOS;
+        val row    = (int) (window % WINDOW_COUNT);
+        // 复用已过期的窗口
+        if (windows[row] != window) {
+            windows[row] = window;
+            Arrays.fill(counts[row], 0);
+        }
+        counts[row][indexOf(Math.max(nanos, 0))]++;
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public synchronized void reset() {
+        Arrays.fill(windows, -1);
+        for (val row : counts) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the windows not expired yet.
+     *
+     * @return the snapshot
+     */
+    public synchronized Snapshot snapshot() {
+        val window = (System.nanoTime() - origin) / WINDOW_NANOS;
+        val merged = new long[BUCKET_COUNT];
+        for (var row = 0; row < WINDOW_COUNT; row++) {
+            if (windows[row] < 0 || window - windows[row] >= WINDOW_COUNT) {
+                continue;
+            }
+            for (var i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] += counts[row][i];
+            }
+        }
+        return new Snapshot(merged);
+    }
+
+    /**
+     * Immutable content of a histogram at a moment.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        /**
+         * Count of values recorded.
+         */
+        @Getter
+        private final long count;
+
+        private Snapshot(final long[] counts) {
+            this.counts = counts;
+            var count = 0L;
+            for (val c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        /**
+         * Returns the value at a percentile, as the highest value of its bucket.
+         *
+         * @param percentile from 0 to 100
+         *
+         * @return the value at the percentile in nanoseconds, 0 if nothing is recorded
+         */
+        public long percentile(final double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            val rank = Math.max(1, (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100));
+            var seen = 0L;
+            for (var i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestOf(i);
+                }
+            }
+            return highestOf(counts.length - 1);
+        }
+
+        /**
+         * Returns the highest value recorded, as the highest value of its bucket.
+         *
+         * @return the highest value in nanoseconds, 0 if nothing is recorded
+         */
+        public long max() {
+            return percentile(100);
+        }
+
+        @Override
+        public String toString() {
+            return "count=%d, p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms".formatted(
+                    count,
+                    percentile(50) / 1e6,
+                    percentile(90) / 1e6,
+                    percentile(99) / 1e6,
+                    max() / 1e6
+            );
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@
 package com.edp2021c1.randomseatgenerator.core;
 
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.Getter;
 import lombok.val;
 
 import java.util.List;
@@ -35,8 +36,16 @@ import static com.edp2021c1.randomseatgenerator.core.SeatTable.EMPTY_SEAT_PLACEH
  */
 public class NamePair {
 
+    /**
+     * The first name of the pair.
+     */
+    @Getter
     private final String first;
 
+    /**
+     * The last name of the pair.
+     */
+    @Getter
     private final String last;
 
     /**
@@ -67,7 +76,8 @@ public class NamePair {
     }
 
     /**
-     * Check if {@code first} and {@code last} are separated in the specified seat table.
+     * Check if {@code first} and {@code last} are separated in the specified seat table,
+     * under {@link AdjacencyRule#DEFAULT}.
      *
      * @param seat        the seat table checked.
      * @param columnCount count of columns of the seat table.
@@ -75,11 +85,42 @@ public class NamePair {
      * @return if {@code first} and {@code last} are separated in the seat table.
      */
     public boolean checkSeperated(final List<String> seat, final int columnCount) {
-        if (seat == null || !(seat.contains(first) && seat.contains(last))) {
+        return checkSeperated(seat, columnCount, AdjacencyRule.DEFAULT);
+    }
+
+    /**
+     * Check if {@code first} and {@code last} are separated in the specified seat table.
+     *
+     * @param seat        the seat table checked.
+     * @param columnCount count of columns of the seat table.
+     * @param rule        deciding which seats are neighbours.
+     *
+     * @return if {@code first} and {@code last} are separated in the seat table.
+     */
+    public boolean checkSeperated(final List<String> seat, final int columnCount, final AdjacencyRule rule) {
+        if (seat == null) {
             return true;
         }
         val a = seat.indexOf(first);
         val b = seat.indexOf(last);
+        if (a < 0 || b < 0) {
+            return true;
+        }
+        val rowCount = (seat.size() + columnCount - 1) / columnCount;
+        return !NeighbourTable.of(rule, rowCount, columnCount).adjacent(a, b);
+    }
+
+    /**
+     * Check if two seats are separated in a seat table with the given column count, under the rule used before
+     * {@link AdjacencyRule} is introduced.
+     *
+     * @param a           index of the first seat
+     * @param b           index of the second seat
+     * @param columnCount count of columns of the seat table
+     *
+     * @return if the two seats are separated
+     */
+    static boolean separated(final int a, final int b, final int columnCount) {
         val c = a - b;
         val d = Math.abs(c);
         val e = a % columnCount;
@@ -0,0 +1,167 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.edp2021c1.randomseatgenerator.core.SeatTable.groupLeaderFormat;
+
+/**
+ * Symbol table of names, shared by all the compiled configs and seat tables.
+ * <p>
+ * Each name is stored only once and is given an {@code int} ID, so that seat tables are stored as IDs,
+ * and keeping many seat tables of the same people costs little more than the IDs.
+ * A cell of a seat table is either the ID of a name, or the bitwise complement of the ID
+ * if the person is marked as a group leader, whose string is made and cached when first asked for.
+ * <p>
+ * Names are never removed from the pool, so only the names actually put into seat tables should be interned.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class NamePool {
+
+    /**
+     * The global instance.
+     */
+    public static final NamePool POOL = new NamePool();
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+
+    /**
+     * Names indexed by ID, replaced by a larger copy when full.
+     */
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * Group leader cells indexed by ID, filled lazily and grown together with {@link #names}.
+     */
+    private volatile String[] leaderCells = new String[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private NamePool() {
+    }
+
+    /**
+     * Returns the ID of a name, adding the name to the pool if absent.
+     *
+     * @param name to intern
+     *
+     * @return ID of the name
+     */
+    public int intern(final String name) {
+        val id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    private synchronized int add(final String name) {
+        val id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        var n = names;
+        if (size == n.length) {
+            n = Arrays.copyOf(n, size << 1);
+            leaderCells = Arrays.copyOf(leaderCells, size << 1);
+        }
+        n[size] = name;
+        // 先发布数组，再发布编号
+        names = n;
+        ids.put(name, size);
+        return size++;
+    }
+
+    /**
+     * Returns the pooled instance of a name, adding the name to the pool if absent.
+     *
+     * @param name to intern
+     *
+     * @return the instance of the name stored in the pool
+     */
+    public String canonical(final String name) {
+        return name(intern(name));
+    }
+
+    /**
+     * Returns the name of an ID.
+     *
+     * @param id of the name
+     *
+     * @return the name
+     */
+    public String name(final int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the cell of a seat table.
+     *
+     * @param cell ID of the name, or the bitwise complement of it for a group leader
+     *
+     * @return the name, formatted with {@link SeatTable#groupLeaderFormat} for a group leader
+     */
+    public String cell(final int cell) {
+        if (cell >= 0) {
+            return names[cell];
+        }
+        val id    = ~cell;
+        val cells = leaderCells;
+        var res   = cells[id];
+        if (res == null) {
+            // 字符串不可变，并发时至多重复生成一次
+            res = groupLeaderFormat.formatted(names[id]);
+            cells[id] = res;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the cell of a seat table from its string.
+     *
+     * @param s name, or name formatted with {@link SeatTable#groupLeaderFormat} for a group leader
+     *
+     * @return ID of the name, or the bitwise complement of it for a group leader
+     */
+    public int cellOf(final String s) {
+        if (SeatTable.groupLeaderRegexPredicate.test(s)) {
+            return ~intern(s.substring(1, s.length() - 1));
+        }
+        return intern(s);
+    }
+
+    /**
+     * Returns the count of names in the pool.
+     *
+     * @return the count of names
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Precomputed neighbours of every seat in a seat table of a certain size, under an {@link AdjacencyRule}.
+ * <p>
+ * Neighbours of each seat are stored as a sorted list of seat indexes,
+ * so a table takes memory in proportion to the count of neighbours rather than the square of the count of seats,
+ * and only seats within {@link AdjacencyRule#rowReach()} rows are evaluated when building it.
+ * Tables are cached and shared between generations with the same rule, row count and column count.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class NeighbourTable {
+
+    /**
+     * Max bytes of the tables cached.
+     */
+    private static final long MAX_CACHED_BYTES = 16L << 20;
+
+    private static final Map<Key, NeighbourTable> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Bytes of the tables in {@link #cache}.
+     */
+    private static long cachedBytes = 0;
+
+    /**
+     * The rule used to build this table.
+     */
+    @Getter
+    private final AdjacencyRule rule;
+
+    @Getter
+    private final int rowCount;
+
+    @Getter
+    private final int columnCount;
+
+    /**
+     * Neighbours of seat {@code i} are stored in {@code list[offsets[i] .. offsets[i + 1])}, in ascending order.
+     */
+    private final int[] offsets;
+
+    private final int[] list;
+
+    private NeighbourTable(final AdjacencyRule rule, final int rowCount, final int columnCount) {
+        this.rule = rule;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+
+        val seatNum = rowCount * columnCount;
+        val reach   = (int) Math.min(rule.rowReach(), rowCount - 1L);
+        offsets = new int[seatNum + 1];
+        var buf   = new int[Math.max(seatNum, 16)];
+        var count = 0;
+        for (var a = 0; a < seatNum; a++) {
+            val row  = a / columnCount;
+            val from = Math.max(row - reach, 0) * columnCount;
+            val to   = Math.min(row + reach + 1, rowCount) * columnCount;
+            for (var b = from; b < to; b++) {
+                if (b != a && rule.adjacent(a, b, columnCount)) {
+                    if (count == buf.length) {
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    }
+                    buf[count++] = b;
+                }
+            }
+            offsets[a + 1] = count;
+        }
+        list = Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * Returns the neighbour table of a seat table of the given size, built at most once for each rule and size
+     * while it is cached.
+     *
+     * @param rule        deciding which seats are neighbours
+     * @param rowCount    count of rows of the seat table
+     * @param columnCount count of columns of the seat table
+     *
+     * @return the neighbour table
+     */
+    public static NeighbourTable of(final AdjacencyRule rule, final int rowCount, final int columnCount) {
+        Objects.requireNonNull(rule);
+        if (rowCount <= 0 || columnCount <= 0) {
+            throw new IllegalArgumentException("Row count and column count must be positive");
+        }
+        val key = new Key(rule, rowCount, columnCount);
+        synchronized (cache) {
+            val table = cache.get(key);
+            if (table != null) {
+                return table;
+            }
+        }
+        // 在锁外构建，避免大表阻塞其他线程
+        val table = new NeighbourTable(rule, rowCount, columnCount);
+        val bytes = table.bytes();
+        // 超过上限的表不缓存
+        if (bytes > MAX_CACHED_BYTES) {
+            return table;
+        }
+        synchronized (cache) {
+            val old = cache.putIfAbsent(key, table);
+            if (old != null) {
+                return old;
+            }
+            cachedBytes += bytes;
+            // 按最近使用顺序淘汰
+            val it = cache.values().iterator();
+            while (cachedBytes > MAX_CACHED_BYTES) {
+                cachedBytes -= it.next().bytes();
+                it.remove();
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns whether two seats are neighbours.
+     *
+     * @param a index of the first seat
+     * @param b index of the second seat
+     *
+     * @return whether the two seats are neighbours
+     */
+    public boolean adjacent(final int a, final int b) {
+        return Arrays.binarySearch(list, offsets[a], offsets[a + 1], b) >= 0;
+    }
+
+    /**
+     * Returns the count of neighbours of a seat.
+     *
+     * @param seat index of the seat
+     *
+     * @return the count of neighbours
+     */
+    public int neighbourCount(final int seat) {
+        return offsets[seat + 1] - offsets[seat];
+    }
+
+    /**
+     * Returns a neighbour of a seat.
+     *
+     * @param seat  index of the seat
+     * @param index of the neighbour, from 0 to {@link #neighbourCount(int)} exclusive
+     *
+     * @return index of the neighbour seat
+     */
+    public int neighbour(final int seat, final int index) {
+        return list[offsets[seat] + index];
+    }
+
+    /**
+     * Returns the neighbours of a seat.
+     *
+     * @param seat index of the seat
+     *
+     * @return a copy of the indexes of the neighbour seats, in ascending order
+     */
+    public int[] neighbours(final int seat) {
+        return Arrays.copyOfRange(list, offsets[seat], offsets[seat + 1]);
+    }
+
+    /**
+     * Returns the approximate count of bytes taken by the table.
+     */
+    private long bytes() {
+        return 4L * (offsets.length + list.length) + 64;
+    }
+
+    private static final class Key {
+
+        private final AdjacencyRule rule;
+
+        private final int rowCount;
+
+        private final int columnCount;
+
+        private Key(final AdjacencyRule rule, final int rowCount, final int columnCount) {
+            this.rule = rule;
+            this.rowCount = rowCount;
+            this.columnCount = columnCount;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof final Key other
+                    && other.rule.equals(rule)
+                    && other.rowCount == rowCount
+                    && other.columnCount == columnCount;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rule, rowCount, columnCount);
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Generator implementation that reshuffles like {@link SeatTableGeneratorAndCheckerImpl} does,
+ * but on all available processors at once.
+ * <p>
+ * The seed is split into {@link #STREAM_COUNT} independent random streams,
+ * and attempt {@code j} of stream {@code i} is numbered {@code j * STREAM_COUNT + i}.
+ * The valid seat table with the lowest number wins, and workers stop as soon as
+ * none of their remaining attempts can have a lower number than the best one found,
+ * so the result depends only on the seed, not on how many processors run it.
+ * The workers run on a shared pool of daemon threads, created when first used,
+ * so that generating many seat tables does not start new threads for each of them.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class ParallelSeatTableGenerator implements SeatTableGeneratorAndChecker {
+
+    static final SeatTableGenerator instance = new ParallelSeatTableGenerator();
+
+    /**
+     * Count of random streams the seed is split into, fixed so that the result does not depend on the processors.
+     */
+    public static final int STREAM_COUNT = 64;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private ParallelSeatTableGenerator() {
+    }
+
+    @Override
+    public SeatTable generate(final SeatConfig config, final String seed) throws IllegalConfigException {
+        return generate(config, seed, CancellationToken.create());
+    }
+
+    @Override
+    public SeatTable generate(final SeatConfig config, String seed, final CancellationToken token)
+            throws IllegalConfigException, GenerationCancelledException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        return generate(compiled, seed, token);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Seeds are generated one by one, since each of them already runs on all available processors.
+     */
+    @Override
+    public Stream<SeatTable> generateAll(final SeatConfig config, final Stream<String> seeds, final CancellationToken token)
+            throws IllegalConfigException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        return seeds.sequential().map(seed -> generate(compiled, seed, token));
+    }
+
+    private static SeatTable generate(final CompiledSeatConfig compiled, String seed, final CancellationToken token)
+            throws GenerationCancelledException {
+        val root = new SplittableRandom(Seeds.toLong(seed));
+        seed = Seeds.describe(seed);
+
+        val streams = new SplittableRandom[STREAM_COUNT];
+        for (var i = 0; i < STREAM_COUNT; i++) {
+            streams[i] = root.split();
+        }
+
+        val best        = new AtomicLong(Long.MAX_VALUE);
+        val stopped     = new AtomicBoolean();
+        val failure     = new AtomicReference<Throwable>();
+        val results     = new SeatTable[STREAM_COUNT];
+        val workerCount = Math.min(Runtime.getRuntime().availableProcessors(), STREAM_COUNT);
+        val workers     = new ArrayList<Future<?>>(workerCount);
+        val stats       = new GenerationStats(compiled);
+        val workerStats = new GenerationStats[workerCount];
+        val allocated   = new long[workerCount];
+        val finalSeed   = seed;
+        for (var w = 0; w < workerCount; w++) {
+            val first = w;
+            workers.add(Workers.executor.submit(() -> {
+                val attempt = new SeatTableGeneratorAndCheckerImpl.Attempt(compiled);
+                val counter = workerStats[first] = new GenerationStats(compiled);
+                try {
+                    // 每个线程轮流尝试自己负责的各个随机流，直到不可能找到编号更小的结果
+                    for (var j = 0L; ; j++) {
+                        var active   = false;
+                        var attempts = 0;
+                        for (var i = first; i < STREAM_COUNT; i += workerCount) {
+                            if (results[i] != null) {
+                                continue;
+                            }
+                            val number = j * STREAM_COUNT + i;
+                            if (number > best.get()) {
+                                continue;
+                            }
+                            active = true;
+                            attempts++;
+                            val violation = attempt.nextViolation(streams[i]);
+                            if (violation == CompiledSeatConfig.VALID) {
+                                results[i] = attempt.toSeatTable(finalSeed, streams[i]);
+                                best.accumulateAndGet(number, Math::min);
+                            } else {
+                                counter.reject(violation);
+                            }
+                        }
+                        counter.attempt(attempts);
+                        token.addAttempts(attempts);
+                        if (!active || failure.get() != null) {
+                            return;
+                        }
+                        if (token.isCancelled()) {
+                            stopped.set(true);
+                            return;
+                        }
+                    }
+                } catch (final Throwable e) {
+                    // 只保留第一个异常，其余线程随后停止
+                    failure.compareAndSet(null, e);
+                } finally {
+                    allocated[first] = counter.allocatedBytesSinceStart();
+                }
+            }));
+        }
+
+        var success = false;
+        try {
+            try {
+                for (val worker : workers) {
+                    worker.get();
+                }
+            } catch (final InterruptedException e) {
+                // 取消后线程池中的任务随即停止
+                token.cancel();
+                Thread.currentThread().interrupt();
+                throw new GenerationCancelledException(token.getAttempts());
+            } catch (final ExecutionException e) {
+                failure.compareAndSet(null, e.getCause());
+            }
+
+            val e = failure.get();
+            if (e instanceof final RuntimeException re) {
+                throw re;
+            }
+            if (e instanceof final Error error) {
+                throw error;
+            }
+            if (e != null) {
+                throw new RuntimeException(e);
+            }
+            // 提前停止的线程可能错过了编号更小的结果
+            if (stopped.get()) {
+                throw new GenerationCancelledException(token.getAttempts());
+            }
+            success = true;
+            return results[(int) (best.get() % STREAM_COUNT)];
+        } finally {
+            // 被中断时仍在运行的线程不计入
+            for (var w = 0; w < workerCount; w++) {
+                if (workerStats[w] != null && workers.get(w).isDone()) {
+                    stats.merge(workerStats[w], allocated[w]);
+                }
+            }
+            stats.finish(instance, seed, success);
+        }
+    }
+
+    /**
+     * Holder of the pool running the workers, so that the pool is created only when first used.
+     */
+    private static final class Workers {
+
+        private static final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(Runtime.getRuntime().availableProcessors(), STREAM_COUNT),
+                Thread.ofPlatform().daemon().name("Seat Table Generator-", 0).factory()
+        );
+
+    }
+
+}
@@ -112,4 +112,32 @@ public interface SeatConfig {
      */
     List<NamePair> separatedPairs() throws IllegalConfigException;
 
+    /**
+     * Returns the rule deciding which seats are too close for a separated pair.
+     *
+     * @return the adjacency rule, {@link AdjacencyRule#DEFAULT} by default
+     *
+     * @throws IllegalConfigException if the rule is invalid
+     * @see AdjacencyRule
+     */
+    default AdjacencyRule adjacencyRule() throws IllegalConfigException {
+        return AdjacencyRule.DEFAULT;
+    }
+
+    /**
+     * Checks and compiles this config, used by {@link CompiledSeatConfig#of(SeatConfig)}.
+     * <p>
+     * Immutable configs may override this to compile only once,
+     * so that the compiled config and the feasibility analyzed on it are reused between generations.
+     *
+     * @return the compiled config
+     *
+     * @throws IllegalConfigException if this config is illegal,
+     *                                or no seat table with the given row and column count can hold the people
+     */
+    default CompiledSeatConfig compile() throws IllegalConfigException {
+        check();
+        return new CompiledSeatConfig(this);
+    }
+
 }
@@ -18,21 +18,18 @@
 
 package com.edp2021c1.randomseatgenerator.core;
 
-import com.alibaba.excel.EasyExcel;
-import com.alibaba.excel.write.builder.ExcelWriterBuilder;
-import com.edp2021c1.randomseatgenerator.util.DataUtils;
 import com.edp2021c1.randomseatgenerator.util.Metadata;
 import com.edp2021c1.randomseatgenerator.util.PathWrapper;
 import com.edp2021c1.randomseatgenerator.util.RuntimeUtils;
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.val;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -50,8 +47,6 @@ public class SeatTable {
 
     private static final long MAX_GENERATING_TIME_SECONDS = 3L;
 
-    private static final ExcelWriterBuilder excelWriterBuilder = EasyExcel.write().head(RowData.class);
-
     /**
      * Default exporting directory.
      */
@@ -73,7 +68,15 @@ public class SeatTable {
     public static final String groupLeaderFormat = "*%s*";
 
     /**
-     * The seat table stored as a {@code  List}.
+     * Cells of the seat table in {@link NamePool#POOL}.
+     *
+     * @see NamePool#cell(int)
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final int[] cells;
+
+    /**
+     * The seat table viewed as a {@code  List}, whose names are looked up in {@link NamePool#POOL} when read.
      */
     private final List<String> table;
 
@@ -101,10 +104,23 @@ public class SeatTable {
      * @param luckyPerson {@link #luckyPerson}
      */
     public SeatTable(final List<String> table, final SeatConfig config, final String seed, final String luckyPerson) {
-        this.table = table;
+        this(table.stream().mapToInt(NamePool.POOL::cellOf).toArray(), config, seed, luckyPerson);
+    }
+
+    /**
+     * Creates an instance from cells in {@link NamePool#POOL}.
+     *
+     * @param cells       {@link #cells}, not copied
+     * @param config      {@link #config}
+     * @param seed        {@link #seed}
+     * @param luckyPerson {@link #luckyPerson}
+     */
+    SeatTable(final int[] cells, final SeatConfig config, final String seed, final String luckyPerson) {
+        this.cells = cells;
+        this.table = new CellList(cells);
         this.config = config;
         this.seed = seed == null ? "$null$" : seed.isEmpty() ? "$empty_string$" : seed;
-        this.luckyPerson = config.lucky() ? luckyPerson : null;
+        this.luckyPerson = config.lucky() && luckyPerson != null ? NamePool.POOL.canonical(luckyPerson) : null;
     }
 
     /**
@@ -132,26 +148,31 @@ public class SeatTable {
      *
      * @return an instance of {@code SeatTable}
      *
-     * @throws NullPointerException   if the config is null.
-     * @throws IllegalConfigException if the config has an illegal format, or if it
-     *                                costs too much time to generate the seat table
+     * @throws NullPointerException         if the config is null.
+     * @throws IllegalConfigException       if the config has an illegal format
+     * @throws GenerationCancelledException if it costs too much time to generate the seat table
      */
     public static SeatTable generate(final SeatConfig config, final String seed, final SeatTableGenerator generator) {
+        // 超时后生成器自行停止，不再占用线程
+        val token = CancellationToken.withTimeout(MAX_GENERATING_TIME_SECONDS, TimeUnit.SECONDS);
         try {
-            return RuntimeUtils.runWithTimeout(() -> generator.generate(config, seed), MAX_GENERATING_TIME_SECONDS, TimeUnit.SECONDS);
+            return RuntimeUtils.runWithTimeout(
+                    () -> generator.generate(config, seed, token),
+                    MAX_GENERATING_TIME_SECONDS,
+                    TimeUnit.SECONDS
+            );
         } catch (final Throwable e) {
             var e1 = e;
             if (e1 instanceof ExecutionException) {
                 e1 = e1.getCause();
             }
+            if (e1 instanceof TimeoutException || e1 instanceof GenerationCancelledException) {
+                token.cancel();
+                throw new GenerationCancelledException(token.getAttempts(), seed);
+            }
             if (e1 instanceof RuntimeException) {
                 throw (RuntimeException) e1;
             }
-            if (e1 instanceof TimeoutException) {
-                val ex  = new IllegalConfigException("Seat table generating timeout, please check your config or use another seed");
-                val exx = new IllegalConfigException("Seed: " + seed);
-                throw new IllegalConfigException(List.of(ex, exx));
-            }
             throw new RuntimeException(e1);
         }
     }
@@ -180,27 +201,30 @@ public class SeatTable {
      * @return the result string
      */
     public String toString(final String lineSeparator) {
-        return String.join(lineSeparator, toRowData().stream().map(RowData::toString).toList());
+        return String.join(lineSeparator, rows().stream().map(RowData::toString).toList());
     }
 
     /**
      * Returns a list of {@code RowData} containing data of this.
      *
      * @return a {@code List} storing {@code RowData} transferred from this
+     *
+     * @see #rows()
      */
     public List<RowData> toRowData() {
-        val columnCount = config.columnCount();
-        val rows        = new LinkedList<RowData>();
-
-        rows.add(RowData.header(columnCount));
-        rows.addAll(DataUtils.split(table, columnCount).map(RowData::of).toList());
-
-        if (config.lucky()) {
-            rows.add(RowData.of("Lucky Person", luckyPerson));
-        }
+        return new ArrayList<>(rows());
+    }
 
-        rows.add(RowData.of("Seed", seed));
-        return rows;
+    /**
+     * Returns a read-only view of the rows of this, including the header, the seats, the lucky person and the seed.
+     * <p>
+     * Each row is made from the cells only when read, so the rows can be written one by one
+     * without building all of them first.
+     *
+     * @return the rows of this
+     */
+    public List<RowData> rows() {
+        return new RowList();
     }
 
     /**
@@ -214,39 +238,102 @@ public class SeatTable {
      * @see RowData#toString(String)
      */
     public String toString(final String seatSeparator, final String rowSeparator) {
-        return String.join(rowSeparator, toRowData().stream().map(rowData -> rowData.toString(seatSeparator)).toList());
+        return String.join(rowSeparator, rows().stream().map(rowData -> rowData.toString(seatSeparator)).toList());
     }
 
     /**
-     * Exports this instance to a chart, either an Excel document (*.xlsx/*.xls), or an CSV file (.csv).
+     * Exports this instance to a chart, either an Excel document (*.xlsx/*.xls), or an CSV file (.csv),
+     * or to a file for programs, see {@link SeatTableSerializer}.
+     * <p>
+     * The format is decided by the extension of the file name, and is Excel document (*.xlsx) if unknown.
      *
      * @param filePath path of file to export to
      * @param writable if exports to a writable file
      *
      * @throws IOException if an I/O error occurs
+     * @see #exportToChart(Path, ExportFormat, boolean)
      */
     public void exportToChart(final Path filePath, final boolean writable) throws IOException {
+        exportToChart(filePath, null, writable);
+    }
+
+    /**
+     * Exports this instance to a file in the given format.
+     *
+     * @param filePath path of file to export to, today's Excel document in {@link #DEFAULT_EXPORTING_DIR} if null
+     * @param format   of the file, decided by the extension of the file name if null
+     * @param writable if exports to a writable file
+     *
+     * @throws IOException if an I/O error occurs
+     * @see SeatTableExporter#export(SeatTable, Path, ExportFormat, boolean)
+     */
+    public void exportToChart(final Path filePath, final ExportFormat format, final boolean writable) throws IOException {
         if (filePath == null) {
-            exportToChart(DEFAULT_EXPORTING_DIR.resolve("%tF.xlsx".formatted(new Date())), writable);
+            exportToChart(DEFAULT_EXPORTING_DIR.resolve("%tF.xlsx".formatted(new Date())), format, writable);
             return;
         }
-        if (filePath.endsWith(".csv")) {
-            PathWrapper.wrap(filePath).writeString(toString(",", System.lineSeparator()));
-            return;
+        SeatTableExporter.export(this, filePath, format, writable);
+    }
+
+    /**
+     * Read-only view of the cells of a seat table.
+     */
+    private static final class CellList extends AbstractList<String> implements RandomAccess {
+
+        private final int[] cells;
+
+        private CellList(final int[] cells) {
+            this.cells = cells;
         }
-        try {
-            PathWrapper.wrap(filePath).moveToTrash().getParent().replaceWithDirectory();
-            val f = filePath.toFile();
-            excelWriterBuilder
-                    .file(f)
-                    .sheet("座位表-%tF".formatted(new Date()))
-                    .doWrite(toRowData());
-            if (!(writable || f.setReadOnly())) {
-                throw new IOException("Failed to set output file \"%s\" to read-only".formatted(f));
+
+        @Override
+        public String get(final int index) {
+            return NamePool.POOL.cell(cells[index]);
+        }
+
+        @Override
+        public int size() {
+            return cells.length;
+        }
+
+    }
+
+    /**
+     * Rows of this seat table, made when read.
+     */
+    private final class RowList extends AbstractList<RowData> implements RandomAccess {
+
+        private final int columnCount = config.columnCount();
+
+        private final int seatRowCount = (cells.length + columnCount - 1) / columnCount;
+
+        private final boolean lucky = config.lucky();
+
+        @Override
+        public RowData get(final int index) {
+            Objects.checkIndex(index, size());
+            if (index == 0) {
+                return RowData.header(columnCount);
             }
-        } catch (final Throwable e) {
-            throw new IOException("Failed to save seat table to \"%s\"".formatted(filePath), e);
+            if (index <= seatRowCount) {
+                val from = (index - 1) * columnCount;
+                val row  = new String[Math.min(columnCount, cells.length - from)];
+                for (var i = 0; i < row.length; i++) {
+                    row[i] = NamePool.POOL.cell(cells[from + i]);
+                }
+                return RowData.of(row);
+            }
+            if (lucky && index == seatRowCount + 1) {
+                return RowData.of("Lucky Person", luckyPerson);
+            }
+            return RowData.of("Seed", seed);
         }
+
+        @Override
+        public int size() {
+            return seatRowCount + (lucky ? 3 : 2);
+        }
+
     }
 
 }
@@ -0,0 +1,380 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.enums.CacheLocationEnum;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.edp2021c1.randomseatgenerator.util.PathWrapper;
+import com.edp2021c1.randomseatgenerator.util.RuntimeUtils;
+import lombok.val;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writes seat tables row by row, without building the whole document first.
+ * <p>
+ * Rows are made from the cells of a seat table only when written,
+ * see {@link SeatTable#rows()}.
+ * All the methods are thread-safe, and exports on different files can run in parallel.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class SeatTableExporter {
+
+    /**
+     * Separator between the cells of a row in CSV files.
+     */
+    public static final String CSV_SEPARATOR = ",";
+
+    /**
+     * Default names of the sheets in a batch, made of the index and the seed.
+     */
+    public static final BiFunction<Integer, SeatTable, String> DEFAULT_SHEET_NAMER =
+            (index, seatTable) -> "%d-%s".formatted(index + 1, seatTable.getSeed());
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Count of rows passed to EasyExcel in each write.
+     */
+    private static final int ROWS_PER_WRITE = 64;
+
+    /**
+     * Max length of a sheet name allowed by Excel.
+     */
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final Pattern ILLEGAL_SHEET_NAME_CHARS = Pattern.compile("[\\[\\]:*?/\\\\]");
+
+    private static final Pattern ILLEGAL_FILE_NAME_CHARS = Pattern.compile("[\\\\/:*?\"<>|]");
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private SeatTableExporter() {
+    }
+
+    /**
+     * Writes a seat table to a CSV file through a buffered channel, replacing the file.
+     *
+     * @param seatTable to write
+     * @param path      of the CSV file
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeCsv(final SeatTable seatTable, final Path path) throws IOException {
+        try (val channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+             val writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writeCsv(seatTable, writer);
+        }
+    }
+
+    /**
+     * Writes a seat table in CSV, the same as {@code seatTable.toString(",", System.lineSeparator())}.
+     *
+     * @param seatTable to write
+     * @param writer    to write to, not closed
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeCsv(final SeatTable seatTable, final Writer writer) throws IOException {
+        val rowSeparator = System.lineSeparator();
+        var firstRow     = true;
+        for (val row : seatTable.rows()) {
+            if (!firstRow) {
+                writer.write(rowSeparator);
+            }
+            firstRow = false;
+            for (var i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    writer.write(CSV_SEPARATOR);
+                }
+                writer.write(row.get(i));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Opens an Excel writer of seat tables.
+     * <p>
+     * Each writer is built by a builder of its own, so that writers can be opened on any thread,
+     * while the head metadata of {@link RowData} is parsed only once and then cached in memory by EasyExcel,
+     * instead of in a thread local that is cleared after each write.
+     *
+     * @param file to write to, type decided by the extension
+     *
+     * @return the writer, which should be closed after writing
+     */
+    public static ExcelWriter openExcelWriter(final File file) {
+        return EasyExcel.write(file)
+                .head(RowData.class)
+                .filedCacheLocation(CacheLocationEnum.MEMORY)
+                .build();
+    }
+
+    /**
+     * Opens an Excel writer of seat tables of a certain type, whatever the extension of the file is.
+     *
+     * @param file to write to
+     * @param type of the workbook
+     *
+     * @return the writer, which should be closed after writing
+     *
+     * @see #openExcelWriter(File)
+     */
+    public static ExcelWriter openExcelWriter(final File file, final ExcelTypeEnum type) {
+        return EasyExcel.write(file)
+                .excelType(type)
+                .head(RowData.class)
+                .filedCacheLocation(CacheLocationEnum.MEMORY)
+                .build();
+    }
+
+    /**
+     * Exports a seat table to a file in the given format.
+     * <p>
+     * The seat table is written to a temporary file in the same directory first,
+     * which is then moved to the path, so that a half-written file is never left on the path,
+     * and the file on the path is kept if writing fails.
+     * The replaced file is moved to trash only when running with GUI,
+     * so that exports in console or batch mode do not wait for the desktop.
+     *
+     * @param seatTable to export
+     * @param path      of the file, whose parent directory is created if absent
+     * @param format    of the file, decided by the extension of the path if null
+     * @param writable  if exports to a writable file
+     *
+     * @throws IOException if an I/O error occurs
+     * @see ExportFormat#of(Path)
+     */
+    public static void export(final SeatTable seatTable, final Path path, final ExportFormat format, final boolean writable)
+            throws IOException {
+        val target = path.toFile().toPath().toAbsolutePath();
+        val f      = format == null ? ExportFormat.of(target) : format;
+        replace(target, temp -> f.write(seatTable, temp), writable, "seat table");
+    }
+
+    /**
+     * Writes a file through a temporary file in the same directory, which is then moved to the path.
+     *
+     * @param target      absolute path of the file, whose parent directory is created if absent
+     * @param writer      writes the content to the temporary file
+     * @param writable    if the file is left writable
+     * @param description of the content, used in the message of exceptions
+     *
+     * @throws IOException if an I/O error occurs
+     * @see #export(SeatTable, Path, ExportFormat, boolean)
+     */
+    private static void replace(final Path target, final TempFileWriter writer, final boolean writable, final String description)
+            throws IOException {
+        val parent = target.getParent();
+        PathWrapper.wrap(parent).replaceWithDirectory();
+        val temp = Files.createTempFile(parent, "." + target.getFileName(), ".tmp");
+        try {
+            writer.write(temp);
+            if (withDesktop()) {
+                PathWrapper.wrap(target).moveToTrash();
+            }
+            if (Files.exists(target) && !Files.isWritable(target)) {
+                // 只读文件在部分系统上无法被替换
+                target.toFile().setWritable(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw new IOException("Failed to save %s to \"%s\"".formatted(description, target), e);
+        }
+        if (!(writable || target.toFile().setReadOnly())) {
+            throw new IOException("Failed to set output file \"%s\" to read-only".formatted(target));
+        }
+    }
+
+    /**
+     * Writes a seat table to a workbook with a single sheet, replacing the file.
+     *
+     * @param seatTable to write
+     * @param file      of the workbook
+     * @param sheetName name of the sheet
+     */
+    public static void writeExcel(final SeatTable seatTable, final File file, final String sheetName) {
+        try (val writer = openExcelWriter(file)) {
+            writeExcel(seatTable, writer, EasyExcel.writerSheet(sheetName).build());
+        }
+    }
+
+    /**
+     * Writes a seat table to a sheet through an open Excel writer, a few rows at a time.
+     *
+     * @param seatTable to write
+     * @param writer    to write to, not finished
+     * @param sheet     to write to
+     */
+    public static void writeExcel(final SeatTable seatTable, final ExcelWriter writer, final WriteSheet sheet) {
+        val rows  = seatTable.rows();
+        val batch = new ArrayList<RowData>(Math.min(ROWS_PER_WRITE, rows.size()));
+        for (val row : rows) {
+            batch.add(row);
+            if (batch.size() == ROWS_PER_WRITE) {
+                writer.write(batch, sheet);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch, sheet);
+        }
+    }
+
+    /**
+     * Writes seat tables into one workbook, one sheet for each, through a single Excel writer.
+     * <p>
+     * The seat tables are read from the iterator one at a time and written with EasyExcel's streaming write,
+     * so the memory used does not grow with the count of seat tables
+     * if they are generated lazily, for example from {@link SeatTableGenerator#generateAll(SeatConfig, List)}.
+     * Sheet names are cut to 31 characters, with the characters not allowed by Excel replaced,
+     * and made unique by adding a suffix.
+     * The workbook is written in the same way as {@link #export(SeatTable, Path, ExportFormat, boolean)},
+     * so the file on the path is kept if writing fails.
+     *
+     * @param seatTables to write
+     * @param path       of the workbook, replaced if exists, whose parent directory is created if absent
+     * @param sheetNamer names the sheet of a seat table from its index and itself,
+     *                   {@link #DEFAULT_SHEET_NAMER} if null
+     *
+     * @return count of seat tables written
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static int writeWorkbook(
+            final Iterator<SeatTable> seatTables,
+            final Path path,
+            final BiFunction<Integer, SeatTable, String> sheetNamer
+    ) throws IOException {
+        val namer  = sheetNamer == null ? DEFAULT_SHEET_NAMER : sheetNamer;
+        val target = path.toFile().toPath().toAbsolutePath();
+        // 临时文件的扩展名不是表格格式，需显式指定类型
+        val type  = ExportFormat.of(target) == ExportFormat.XLS ? ExcelTypeEnum.XLS : ExcelTypeEnum.XLSX;
+        val count = new int[1];
+        replace(target, temp -> {
+            val used = new HashSet<String>();
+            try (val writer = openExcelWriter(temp.toFile(), type)) {
+                while (seatTables.hasNext()) {
+                    val seatTable = seatTables.next();
+                    val name      = uniqueSheetName(namer.apply(count[0], seatTable), used);
+                    writeExcel(seatTable, writer, EasyExcel.writerSheet(count[0], name).build());
+                    count[0]++;
+                }
+            }
+        }, true, "seat tables");
+        return count[0];
+    }
+
+    /**
+     * Writes seat tables of each group, such as a class, into a workbook of its own in a directory.
+     *
+     * @param groups     seat tables by the name of the group, which is used as the file name
+     * @param dir        to write the workbooks to, created if absent
+     * @param sheetNamer names the sheet of a seat table from its index in the group and itself,
+     *                   {@link #DEFAULT_SHEET_NAMER} if null
+     *
+     * @return paths of the workbooks written, by the name of the group
+     *
+     * @throws IOException if an I/O error occurs
+     * @see #writeWorkbook(Iterator, Path, BiFunction)
+     */
+    public static Map<String, Path> writeWorkbooks(
+            final Map<String, ? extends Iterable<SeatTable>> groups,
+            final Path dir,
+            final BiFunction<Integer, SeatTable, String> sheetNamer
+    ) throws IOException {
+        Files.createDirectories(dir);
+        val res = new LinkedHashMap<String, Path>();
+        for (val e : groups.entrySet()) {
+            val path = dir.resolve(ILLEGAL_FILE_NAME_CHARS.matcher(e.getKey()).replaceAll("_") + ".xlsx");
+            writeWorkbook(e.getValue().iterator(), path, sheetNamer);
+            res.put(e.getKey(), path);
+        }
+        return res;
+    }
+
+    private static boolean withDesktop() {
+        return (boolean) RuntimeUtils.getPropertyOrDefault("launching.gui", false) && !GraphicsEnvironment.isHeadless();
+    }
+
+    /**
+     * Returns a legal sheet name for Excel based on the name, unique among the used names ignoring case.
+     *
+     * @param name of the sheet, may be null
+     * @param used names already used, in lower case, to which the returned name is added
+     *
+     * @return the sheet name
+     */
+    static String uniqueSheetName(final String name, final Set<String> used) {
+        var base = ILLEGAL_SHEET_NAME_CHARS.matcher(Objects.requireNonNullElse(name, "")).replaceAll("_");
+        if (base.isBlank()) {
+            base = "Sheet";
+        }
+        var res = cut(base, MAX_SHEET_NAME_LENGTH);
+        // Excel中工作表名称不区分大小写
+        for (var i = 2; !used.add(res.toLowerCase(Locale.ROOT)); i++) {
+            val suffix = "(" + i + ")";
+            res = cut(base, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix;
+        }
+        return res;
+    }
+
+    private static String cut(final String s, final int length) {
+        return s.length() <= length ? s : s.substring(0, length);
+    }
+
+    /**
+     * Writes the content of a file to a temporary file.
+     */
+    @FunctionalInterface
+    private interface TempFileWriter {
+
+        void write(Path temp) throws IOException;
+
+    }
+
+}
@@ -18,10 +18,14 @@
 
 package com.edp2021c1.randomseatgenerator.core;
 
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
 import lombok.val;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static com.edp2021c1.randomseatgenerator.core.SeatTable.EMPTY_SEAT_PLACEHOLDER;
 
@@ -36,8 +40,24 @@ public interface SeatTableGenerator {
 
     /**
      * The default implementation of this class.
+     *
+     * @see BacktrackingSeatTableGenerator
+     */
+    SeatTableGenerator defaultGenerator = BacktrackingSeatTableGenerator.instance;
+
+    /**
+     * Generator that reshuffles the whole name list until the seat table is valid.
+     *
+     * @see SeatTableGeneratorAndCheckerImpl
+     */
+    SeatTableGenerator samplingGenerator = SeatTableGeneratorAndCheckerImpl.instance;
+
+    /**
+     * Generator that reshuffles on all available processors, with the result depending only on the seed.
+     *
+     * @see ParallelSeatTableGenerator
      */
-    SeatTableGenerator defaultGenerator = SeatTableGeneratorAndCheckerImpl.instance;
+    SeatTableGenerator parallelGenerator = ParallelSeatTableGenerator.instance;
 
     /**
      * Empty generator.
@@ -62,4 +82,101 @@ public interface SeatTableGenerator {
     SeatTable generate(SeatConfig config, String seed)
             throws IllegalConfigException;
 
+    /**
+     * Generates a seat table, stopping when the token is cancelled.
+     * <p>
+     * Generators that may retry for a long time should override this method,
+     * check the token in the retry loop and report the attempts made to it.
+     * The default implementation ignores the token.
+     *
+     * @param config used to generate the seat table
+     * @param seed   used to generate the seat table
+     * @param token  checked to stop generating
+     *
+     * @return an instance of {@code SeatTable}
+     *
+     * @throws IllegalConfigException        if config is null or is illegal
+     * @throws GenerationCancelledException if the token is cancelled before a seat table is generated
+     */
+    default SeatTable generate(final SeatConfig config, final String seed, final CancellationToken token)
+            throws IllegalConfigException, GenerationCancelledException {
+        return generate(config, seed);
+    }
+
+    /**
+     * Generates a seat table for each seed.
+     *
+     * @param config used to generate the seat tables
+     * @param seeds  used to generate the seat tables
+     *
+     * @return seat tables in the order of the seeds
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     * @see #generateAll(SeatConfig, Stream, CancellationToken)
+     */
+    default Stream<SeatTable> generateAll(final SeatConfig config, final List<String> seeds) throws IllegalConfigException {
+        return generateAll(config, seeds, CancellationToken.create());
+    }
+
+    /**
+     * Generates a seat table for each integer seed in a range.
+     *
+     * @param config   used to generate the seat tables
+     * @param fromSeed the first seed (inclusive)
+     * @param toSeed   the last seed (exclusive)
+     *
+     * @return seat tables in the order of the seeds
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     * @see #generateAll(SeatConfig, Stream, CancellationToken)
+     */
+    default Stream<SeatTable> generateAll(final SeatConfig config, final long fromSeed, final long toSeed)
+            throws IllegalConfigException {
+        // 种子在消费时才生成，范围再大也不预先占用内存
+        return generateAll(config, LongStream.range(fromSeed, toSeed).mapToObj(Long::toString), CancellationToken.create());
+    }
+
+    /**
+     * Generates a seat table for each seed, stopping when the token is cancelled.
+     *
+     * @param config used to generate the seat tables
+     * @param seeds  used to generate the seat tables
+     * @param token  checked to stop generating, shared by all the seeds
+     *
+     * @return seat tables in the order of the seeds
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     * @see #generateAll(SeatConfig, Stream, CancellationToken)
+     */
+    default Stream<SeatTable> generateAll(final SeatConfig config, final List<String> seeds, final CancellationToken token)
+            throws IllegalConfigException {
+        return generateAll(config, seeds.stream(), token);
+    }
+
+    /**
+     * Generates a seat table for each seed of a stream, stopping when the token is cancelled.
+     * <p>
+     * The seeds are consumed and the seat tables are generated lazily, and in parallel, when the result is consumed,
+     * and are in the order of the seeds, each of them the same as generated by {@link #generate(SeatConfig, String)}.
+     * Implementations should check and compile the config only once,
+     * and reuse the buffers between seeds.
+     * The default implementation simply generates the seat tables one by one in a parallel stream.
+     *
+     * @param config used to generate the seat tables
+     * @param seeds  used to generate the seat tables, consumed by the result
+     * @param token  checked to stop generating, shared by all the seeds
+     *
+     * @return seat tables in the order of the seeds
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     */
+    default Stream<SeatTable> generateAll(final SeatConfig config, final Stream<String> seeds, final CancellationToken token)
+            throws IllegalConfigException {
+        if (config == null) {
+            throw new IllegalConfigException("Config cannot be null");
+        }
+        config.check();
+        return seeds.parallel().map(seed -> generate(config, seed, token));
+    }
+
 }
@@ -21,6 +21,7 @@ package com.edp2021c1.randomseatgenerator.core;
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
 import lombok.val;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -35,6 +36,9 @@ public interface SeatTableGeneratorAndChecker extends SeatTableGenerator {
 
     /**
      * Returns if the seat table is valid.
+     * <p>
+     * The config is not checked or compiled, so only the fields needed are read.
+     * Use {@link #check(List, CompiledSeatConfig)} to check many seat tables with the same config.
      *
      * @param seatTable to check
      * @param config    used to check
@@ -44,7 +48,7 @@ public interface SeatTableGeneratorAndChecker extends SeatTableGenerator {
      * @throws IllegalConfigException if config is invalid
      */
     default boolean check(final List<String> seatTable, final SeatConfig config) throws IllegalConfigException {
-        val gl          = config.groupLeaders();
+        val gl          = new HashSet<>(config.groupLeaders());
         val rowCount    = config.rowCount();
         val columnCount = config.columnCount();
 
@@ -60,7 +64,25 @@ public interface SeatTableGeneratorAndChecker extends SeatTableGenerator {
             return false;
         }
         // 检查是否分开
-        return config.separatedPairs().stream().allMatch(separatedPair -> separatedPair.checkSeperated(seatTable, columnCount));
+        val rule = config.adjacencyRule();
+        return config.separatedPairs().stream().allMatch(separatedPair -> separatedPair.checkSeperated(seatTable, columnCount, rule));
+    }
+
+    /**
+     * Returns if the seat table is valid under a compiled config.
+     *
+     * @param seatTable to check
+     * @param compiled  config used to check
+     *
+     * @return if the seat table is valid
+     *
+     * @see CompiledSeatConfig#check(int[], int[])
+     */
+    default boolean check(final List<String> seatTable, final CompiledSeatConfig compiled) {
+        val seats     = compiled.seatsOf(seatTable);
+        val positions = new int[compiled.getPeopleNum()];
+        compiled.fillPositions(seats, positions);
+        return compiled.check(seats, positions);
     }
 
 }
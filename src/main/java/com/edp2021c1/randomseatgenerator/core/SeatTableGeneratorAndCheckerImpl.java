@@ -18,24 +18,20 @@
 
 package com.edp2021c1.randomseatgenerator.core;
 
-import com.edp2021c1.randomseatgenerator.util.DataUtils;
-import com.edp2021c1.randomseatgenerator.util.Strings;
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
 import lombok.val;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
 
-import static com.edp2021c1.randomseatgenerator.core.SeatTable.EMPTY_SEAT_PLACEHOLDER;
-import static com.edp2021c1.randomseatgenerator.core.SeatTable.groupLeaderFormat;
-import static com.edp2021c1.randomseatgenerator.util.DataUtils.pickRandomlyAndRemove;
-import static java.util.Collections.fill;
+import static com.edp2021c1.randomseatgenerator.core.CompiledSeatConfig.EMPTY;
+import static com.edp2021c1.randomseatgenerator.core.CompiledSeatConfig.VALID;
 
 /**
- * Default generator implementation class.
+ * Generator implementation class that reshuffles the whole name list until the seat table is valid.
  *
  * @author Calboot
  * @since 1.5.1
@@ -51,123 +47,199 @@ public final class SeatTableGeneratorAndCheckerImpl implements SeatTableGenerato
     }
 
     @Override
-    public SeatTable generate(final SeatConfig config, String seed) throws IllegalConfigException {
-        if (config == null) {
-            throw new IllegalConfigException("Config cannot be null");
-        }
-        config.check();
-
-        long longSeed;
-        try {
-            longSeed = Long.parseLong(seed);
-            seed += " (integer)";
-        } catch (final RuntimeException e) {
-            if (seed == null || seed.isEmpty()) {
-                longSeed = 0;
-            } else {
-                longSeed = Strings.longHashCode(seed);
-                seed += " (string)";
-            }
-        }
-
-        val rd = new Random(longSeed);
+    public SeatTable generate(final SeatConfig config, final String seed) throws IllegalConfigException {
+        return generate(config, seed, CancellationToken.create());
+    }
 
-        // 获取配置
-        val rowCount        = config.rowCount();
-        val columnCount     = config.columnCount();
-        val nameList        = config.names();
-        val groupLeaderList = config.groupLeaders();
-        val lucky           = config.lucky();
+    @Override
+    public SeatTable generate(final SeatConfig config, String seed, final CancellationToken token)
+            throws IllegalConfigException, GenerationCancelledException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        return generate(new Attempt(compiled), seed, token);
+    }
 
-        // 防止lucky为true时数组越界
-        val minus = lucky ? 1 : 0;
+    @Override
+    public Stream<SeatTable> generateAll(final SeatConfig config, final Stream<String> seeds, final CancellationToken token)
+            throws IllegalConfigException {
+        val compiled = CompiledSeatConfig.of(config);
+        FeasibilityAnalyzer.requireFeasible(compiled);
+        // 每个线程复用一份缓冲区
+        val attempts = ThreadLocal.withInitial(() -> new Attempt(compiled));
+        return seeds.parallel().map(seed -> generate(attempts.get(), seed, token));
+    }
 
-        // 临时变量，提前声明以减少内存和计算操作
-        val peopleNum = nameList.size();
+    private static SeatTable generate(final Attempt attempt, String seed, final CancellationToken token)
+            throws GenerationCancelledException {
+        val rd    = new Random(Seeds.toLong(seed));
+        val stats = new GenerationStats(attempt.compiled);
+        seed = Seeds.describe(seed);
 
-        // 防止行数过多引发死循环
-        if (rowCount > Math.ceil((double) (peopleNum - minus) / columnCount)) {
-            throw new IllegalConfigException("Too many seat with row count " + rowCount);
+        var success = false;
+        try {
+            var violation = VALID;
+            var attempts  = 0;
+            do {
+                violation = attempt.nextViolation(rd);
+                attempts++;
+                if (violation != VALID) {
+                    stats.reject(violation);
+                    if (attempts == CancellationToken.CHECK_INTERVAL) {
+                        stats.attempt(attempts);
+                        token.checkpoint(attempts);
+                        attempts = 0;
+                    }
+                }
+            } while (violation != VALID);
+            stats.attempt(attempts);
+            token.addAttempts(attempts);
+
+            val res = attempt.toSeatTable(seed, rd);
+            success = true;
+            return res;
+        } finally {
+            stats.finish(instance, seed, success);
         }
+    }
 
-        // 防止组长数量不足引发死循环
-        if (groupLeaderList.size() < columnCount) {
-            throw new IllegalConfigException("Not enough group leader for " + columnCount + " column(s)");
+    /**
+     * Shuffles a range of an array, in the same way as {@link java.util.Collections#shuffle(List, Random)}.
+     *
+     * @param array to shuffle
+     * @param from  start index (inclusive)
+     * @param to    end index (exclusive)
+     * @param rd    random service used to shuffle
+     */
+    static void shuffle(final int[] array, final int from, final int to, final RandomGenerator rd) {
+        for (var i = to - from; i > 1; i--) {
+            val a = from + i - 1;
+            val b = from + rd.nextInt(i);
+            val t = array[a];
+            array[a] = array[b];
+            array[b] = t;
         }
+    }
 
-        // 临时变量，提前声明以减少内存和计算操作
-        val seatNum = rowCount * columnCount;
-
-        if (seatNum < peopleNum) {
-            throw new IllegalConfigException("Too many people and not enough seat");
+    /**
+     * Buffers of generating seat tables by reshuffling, reused between attempts.
+     * <p>
+     * An instance is not thread-safe, but attempts made by different instances with different
+     * random services are independent of each other.
+     * <p>
+     * No object is allocated in {@link #next(RandomGenerator)},
+     * the buffers are reset by copying from the initial arrays.
+     */
+    static final class Attempt {
+
+        private final CompiledSeatConfig compiled;
+
+        /**
+         * 座位表数据，以编号表示
+         */
+        private final int[] seats, positions, nameIds, lastRowPos;
+
+        /**
+         * Initial values of {@link #nameIds} and {@link #lastRowPos}.
+         */
+        private final int[] initialNameIds, initialLastRowPos;
+
+        private int luckyPerson = EMPTY;
+
+        /**
+         * Creates buffers for a compiled config.
+         *
+         * @param compiled config to generate seat tables with
+         */
+        Attempt(final CompiledSeatConfig compiled) {
+            this.compiled = compiled;
+            seats = new int[compiled.getSeatNum()];
+            positions = new int[compiled.getPeopleNum()];
+            nameIds = new int[compiled.getPeopleNum()];
+            lastRowPos = new int[compiled.availableLastRowPosCount()];
+            initialNameIds = new int[compiled.getPeopleNum()];
+            for (var i = 0; i < initialNameIds.length; i++) {
+                initialNameIds[i] = i;
+            }
+            initialLastRowPos = compiled.availableLastRowPos();
         }
 
-        val peopleInSeat      = peopleNum - minus;
-        val peopleLeft        = peopleInSeat % columnCount;
-        val noPeopleLeft      = peopleLeft == 0;
-        val randomPeopleCount = Math.min(columnCount * config.randomBetweenRows(), peopleInSeat - peopleLeft);
-
-        val emptyRow = Arrays.asList(new String[columnCount]);
-        fill(emptyRow, EMPTY_SEAT_PLACEHOLDER);
-
-        val availableLastRowPos = IntStream.range(1, columnCount + 1).boxed().filter(value -> !config.disabledLastRowPos().contains(value)).toList();
-        if (availableLastRowPos.size() < peopleLeft) {
-            throw new IllegalConfigException("Available last row seat not enough");
+        /**
+         * Shuffles a new seat table.
+         *
+         * @param rd random service used to shuffle
+         *
+         * @return whether the new seat table is valid
+         */
+        boolean next(final RandomGenerator rd) {
+            return nextViolation(rd) == VALID;
         }
 
-        // 座位表数据
-        val seatTable   = new ArrayList<String>(seatNum);
-        var luckyPerson = "";
-
-        // 临时变量，提前声明以减少内存和计算操作
-        val luckyPersonOriginIndex  = peopleNum - randomPeopleCount - peopleLeft;
-        val seatNumMinusColumnCount = seatNum - columnCount;
-
-        do {
-            seatTable.clear();
-
-            val tNameList            = new ArrayList<>(nameList);
-            val tAvailableLastRowPos = new ArrayList<>(availableLastRowPos);
-
-            if (lucky) {
-                luckyPerson = pickRandomlyAndRemove(tNameList.subList(
-                        luckyPersonOriginIndex,
-                        peopleNum
-                ), rd);
+        /**
+         * Shuffles a new seat table, and tells which rule it breaks.
+         *
+         * @param rd random service used to shuffle
+         *
+         * @return the first violation of the new seat table, {@link CompiledSeatConfig#VALID} if it is valid
+         *
+         * @see CompiledSeatConfig#violation(int[], int[])
+         */
+        int nextViolation(final RandomGenerator rd) {
+            // 获取配置
+            val seatNum                 = compiled.getSeatNum();
+            val peopleNum               = compiled.getPeopleNum();
+            val peopleInSeat            = compiled.getPeopleInSeat();
+            val randomPeopleCount       = compiled.getRandomPeopleCount();
+            val luckyPersonOriginIndex  = compiled.getLuckyPersonOriginIndex();
+            val seatNumMinusColumnCount = seatNum - compiled.getColumnCount();
+
+            Arrays.fill(seats, EMPTY);
+            System.arraycopy(initialNameIds, 0, nameIds, 0, peopleNum);
+            System.arraycopy(initialLastRowPos, 0, lastRowPos, 0, lastRowPos.length);
+
+            if (compiled.isLucky()) {
+                val i = luckyPersonOriginIndex + rd.nextInt(peopleNum - luckyPersonOriginIndex);
+                luckyPerson = nameIds[i];
+                System.arraycopy(nameIds, i + 1, nameIds, i, peopleNum - i - 1);
             }
 
-            DataUtils.split(tNameList, randomPeopleCount).forEach(list -> Collections.shuffle(list, rd));
+            if (randomPeopleCount > 0) {
+                for (var i = 0; i < peopleInSeat; i += randomPeopleCount) {
+                    shuffle(nameIds, i, Math.min(i + randomPeopleCount, peopleInSeat), rd);
+                }
+            }
 
-            if (noPeopleLeft) {
-                seatTable.addAll(tNameList);
+            if (compiled.getPeopleLeft() == 0) {
+                System.arraycopy(nameIds, 0, seats, 0, peopleInSeat);
             } else {
-                seatTable.addAll(tNameList.subList(0, seatNumMinusColumnCount));
-                seatTable.addAll(emptyRow);
-                IntStream
-                        .range(seatNumMinusColumnCount, peopleInSeat)
-                        .forEach(i ->
-                                seatTable.set(pickRandomlyAndRemove(tAvailableLastRowPos, rd) + seatNumMinusColumnCount - 1, tNameList.get(i))
-                        );
+                System.arraycopy(nameIds, 0, seats, 0, seatNumMinusColumnCount);
+                var lastRowPosLeft = lastRowPos.length;
+                for (var i = seatNumMinusColumnCount; i < peopleInSeat; i++) {
+                    val j = rd.nextInt(lastRowPosLeft);
+                    seats[lastRowPos[j] + seatNumMinusColumnCount - 1] = nameIds[i];
+                    System.arraycopy(lastRowPos, j + 1, lastRowPos, j, --lastRowPosLeft - j);
+                }
             }
-        } while (!check(seatTable, config));
-
-        IntStream
-                .range(0, columnCount)
-                .mapToObj(i ->
-                        DataUtils.pickRandomly(
-                                IntStream
-                                        .iterate(i, i1 -> i1 + columnCount)
-                                        .limit(rowCount)
-                                        .mapToObj(seatTable::get)
-                                        .filter(groupLeaderList::contains)
-                                        .toList()
-                                , rd))
-                .forEach(tGroupLeader -> {
-                    val t = seatTable.indexOf(tGroupLeader);
-                    seatTable.set(t, groupLeaderFormat.formatted(tGroupLeader));
-                });
-
-        return new SeatTable(seatTable, config, seed, luckyPerson);
+            compiled.fillPositions(seats, positions);
+            return compiled.violation(seats, positions);
+        }
+
+        /**
+         * Turns the last seat table shuffled into a {@link SeatTable}.
+         *
+         * @param seed seed shown in the seat table
+         * @param rd   random service used to choose the group leaders
+         *
+         * @return the seat table
+         */
+        SeatTable toSeatTable(final String seed, final RandomGenerator rd) {
+            return new SeatTable(
+                    compiled.toCells(seats, rd),
+                    compiled.getConfig(),
+                    seed,
+                    compiled.isLucky() ? compiled.name(luckyPerson) : ""
+            );
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,507 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Stores seat tables in formats meant for programs rather than people, and reads them back.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *     <li>JSON Lines ({@value #JSON_LINES_SUFFIX}), one JSON object per line with the fields
+ *     {@code seed}, {@code columnCount}, {@code lucky}, {@code luckyPerson} and {@code table},
+ *     the last of which is the array of the cells as in {@link SeatTable#getTable()}.</li>
+ *     <li>Binary ({@value #BINARY_SUFFIX}), a table of all the names used followed by the seat tables,
+ *     whose cells are stored as {@code int} indexes of the name table, see {@link NamePool}.</li>
+ * </ul>
+ * Seat tables read back do not carry the configs used to generate them,
+ * but a config with only their shape and the people seated, which is enough to show and export them.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class SeatTableSerializer {
+
+    /**
+     * Suffix of JSON Lines files.
+     */
+    public static final String JSON_LINES_SUFFIX = ".jsonl";
+
+    /**
+     * Suffix of binary files.
+     */
+    public static final String BINARY_SUFFIX = ".rsgt";
+
+    /**
+     * "RSGT" in ASCII.
+     */
+    private static final int MAGIC = 0x52534754;
+
+    private static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int NO_LUCKY_PERSON = -1;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private SeatTableSerializer() {
+    }
+
+    /**
+     * Writes seat tables to a JSON Lines file, replacing the file.
+     *
+     * @param seatTables to write, consumed one by one
+     * @param path       of the file
+     *
+     * @return count of the seat tables written
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static int writeJsonLines(final Iterator<SeatTable> seatTables, final Path path) throws IOException {
+        try (val channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+             val out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+            return writeJsonLines(seatTables, out);
+        }
+    }
+
+    /**
+     * Writes seat tables as JSON Lines in UTF-8, one line for each.
+     * <p>
+     * The stream is not closed.
+     *
+     * @param seatTables to write, consumed one by one
+     * @param out        to write to
+     *
+     * @return count of the seat tables written
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static int writeJsonLines(final Iterator<SeatTable> seatTables, final OutputStream out) throws IOException {
+        var count = 0;
+        // 复用同一个 writer，每行写完即刷出
+        try (val writer = JSONWriter.ofUTF8()) {
+            while (seatTables.hasNext()) {
+                val seatTable = seatTables.next();
+                writer.startObject();
+                writer.writeName("seed");
+                writer.writeColon();
+                writer.writeString(seatTable.getSeed());
+                writer.writeName("columnCount");
+                writer.writeColon();
+                writer.writeInt32(seatTable.getConfig().columnCount());
+                writer.writeName("lucky");
+                writer.writeColon();
+                writer.writeBool(seatTable.getConfig().lucky());
+                writer.writeName("luckyPerson");
+                writer.writeColon();
+                if (seatTable.getLuckyPerson() == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeString(seatTable.getLuckyPerson());
+                }
+                writer.writeName("table");
+                writer.writeColon();
+                writer.writeString(seatTable.getTable());
+                writer.endObject();
+                writer.flushTo(out);
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Reads seat tables from a JSON Lines file.
+     *
+     * @param path of the file
+     *
+     * @return the seat tables, in the order of the lines
+     *
+     * @throws IOException if an I/O error occurs, or if the file is malformed
+     */
+    public static List<SeatTable> readJsonLines(final Path path) throws IOException {
+        val bytes = Files.readAllBytes(path);
+        return readJsonLines(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads seat tables from JSON Lines in UTF-8.
+     * <p>
+     * Each line is parsed in place, without being copied into a string first.
+     * Blank lines are skipped.
+     *
+     * @param bytes  containing the lines
+     * @param offset of the first byte
+     * @param length of the bytes
+     *
+     * @return the seat tables, in the order of the lines
+     *
+     * @throws IOException if the lines are malformed
+     */
+    public static List<SeatTable> readJsonLines(final byte[] bytes, final int offset, final int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        val res = new ArrayList<SeatTable>();
+        val end = offset + length;
+        var lineNum = 0;
+        for (var from = offset; from < end; ) {
+            var to = from;
+            while (to < end && bytes[to] != '\n') {
+                to++;
+            }
+            lineNum++;
+            if (!isBlank(bytes, from, to)) {
+                try (val reader = JSONReader.of(bytes, from, to - from, StandardCharsets.UTF_8)) {
+                    res.add(readJsonLine(reader));
+                } catch (final JSONException | IllegalConfigException e) {
+                    throw new IOException("Malformed seat table at line %d".formatted(lineNum), e);
+                }
+            }
+            from = to + 1;
+        }
+        return res;
+    }
+
+    /**
+     * Writes seat tables to a binary file, replacing the file.
+     *
+     * @param seatTables to write
+     * @param path       of the file
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeBinary(final Collection<SeatTable> seatTables, final Path path) throws IOException {
+        try (val channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+             val out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+            writeBinary(seatTables, out);
+        }
+    }
+
+    /**
+     * Writes seat tables in the binary format.
+     * <p>
+     * The names in the seat tables are collected first to make the name table,
+     * so that each name is written only once however many seat tables it appears in.
+     * The stream is not closed.
+     *
+     * @param seatTables to write
+     * @param out        to write to
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeBinary(final Collection<SeatTable> seatTables, final OutputStream out) throws IOException {
+        // 池内 ID 到名字表下标的映射，-1 表示尚未写入
+        val localIds = new int[NamePool.POOL.size()];
+        Arrays.fill(localIds, -1);
+        val names = new ArrayList<String>();
+        for (val seatTable : seatTables) {
+            for (val cell : seatTable.getCells()) {
+                addName(cell < 0 ? ~cell : cell, localIds, names);
+            }
+            // 幸运儿不一定在座位表中
+            if (seatTable.getLuckyPerson() != null) {
+                addName(NamePool.POOL.intern(seatTable.getLuckyPerson()), localIds, names);
+            }
+        }
+
+        val data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.size());
+        for (val name : names) {
+            writeString(data, name);
+        }
+        data.writeInt(seatTables.size());
+        for (val seatTable : seatTables) {
+            val cells       = seatTable.getCells();
+            val luckyPerson = seatTable.getLuckyPerson();
+            data.writeInt(seatTable.getConfig().columnCount());
+            data.writeBoolean(seatTable.getConfig().lucky());
+            data.writeInt(luckyPerson == null ? NO_LUCKY_PERSON : localIds[NamePool.POOL.intern(luckyPerson)]);
+            writeString(data, seatTable.getSeed());
+            data.writeInt(cells.length);
+            for (val cell : cells) {
+                data.writeInt(cell < 0 ? ~localIds[~cell] : localIds[cell]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads seat tables from a binary file, mapping the file into memory.
+     *
+     * @param path of the file
+     *
+     * @return the seat tables, in the order written
+     *
+     * @throws IOException if an I/O error occurs, or if the file is malformed
+     */
+    public static List<SeatTable> readBinary(final Path path) throws IOException {
+        try (val channel = FileChannel.open(path, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File \"%s\" too large to be a seat table file".formatted(path));
+            }
+            return readBinary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads seat tables in the binary format.
+     * <p>
+     * Names are decoded straight from the buffer, and cells are read in bulk through an {@code int} view of it.
+     * Reading starts at the position of the buffer, which is moved to the end of the seat tables.
+     *
+     * @param buffer to read from
+     *
+     * @return the seat tables, in the order written
+     *
+     * @throws IOException if the buffer is malformed
+     */
+    public static List<SeatTable> readBinary(final ByteBuffer buffer) throws IOException {
+        val buf = buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a seat table file");
+            }
+            val version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported seat table file version: " + version);
+            }
+            // 名字表下标到池内 ID 的映射
+            val poolIds = new int[checkCount(buf.getInt(), buf, 4)];
+            for (var i = 0; i < poolIds.length; i++) {
+                poolIds[i] = NamePool.POOL.intern(readString(buf));
+            }
+            val tableCount = checkCount(buf.getInt(), buf, 13);
+            val res        = new ArrayList<SeatTable>(tableCount);
+            for (var i = 0; i < tableCount; i++) {
+                val columnCount = buf.getInt();
+                val lucky       = buf.get() != 0;
+                val luckyId     = buf.getInt();
+                val seed        = readString(buf);
+                val cells       = new int[checkCount(buf.getInt(), buf, 4)];
+                buf.asIntBuffer().get(cells);
+                buf.position(buf.position() + cells.length * 4);
+                for (var j = 0; j < cells.length; j++) {
+                    val cell = cells[j];
+                    cells[j] = cell < 0 ? ~poolIds[~cell] : poolIds[cell];
+                }
+                val luckyPerson = luckyId == NO_LUCKY_PERSON ? null : NamePool.POOL.name(poolIds[luckyId]);
+                res.add(new SeatTable(cells, new StoredSeatConfig(cells, columnCount, lucky), seed, luckyPerson));
+            }
+            return res;
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException | IllegalConfigException e) {
+            throw new IOException("Truncated or malformed seat table file", e);
+        }
+    }
+
+    private static SeatTable readJsonLine(final JSONReader reader) throws IOException {
+        if (!reader.nextIfObjectStart()) {
+            throw new IOException("Seat table must be a JSON object");
+        }
+        String seed        = null;
+        String luckyPerson = null;
+        var    columnCount = 0;
+        var    lucky       = false;
+        int[]  cells       = null;
+        while (!reader.nextIfObjectEnd()) {
+            switch (reader.readFieldName()) {
+                case "seed" -> seed = reader.readString();
+                case "columnCount" -> columnCount = reader.readInt32Value();
+                case "lucky" -> lucky = reader.readBoolValue();
+                case "luckyPerson" -> luckyPerson = reader.readString();
+                case "table" -> cells = readCells(reader);
+                case null, default -> reader.skipValue();
+            }
+        }
+        if (cells == null) {
+            throw new IOException("Missing field \"table\"");
+        }
+        return new SeatTable(cells, new StoredSeatConfig(cells, columnCount, lucky), seed, luckyPerson);
+    }
+
+    private static int[] readCells(final JSONReader reader) throws IOException {
+        if (!reader.nextIfArrayStart()) {
+            throw new IOException("Field \"table\" must be an array");
+        }
+        var cells = new int[64];
+        var size  = 0;
+        while (!reader.nextIfArrayEnd()) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size << 1);
+            }
+            val cell = reader.readString();
+            if (cell == null) {
+                throw new IOException("Cell cannot be null");
+            }
+            cells[size++] = NamePool.POOL.cellOf(cell);
+        }
+        return Arrays.copyOf(cells, size);
+    }
+
+    private static void addName(final int id, final int[] localIds, final List<String> names) {
+        if (localIds[id] < 0) {
+            localIds[id] = names.size();
+            names.add(NamePool.POOL.name(id));
+        }
+    }
+
+    private static boolean isBlank(final byte[] bytes, final int from, final int to) {
+        for (var i = from; i < to; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        val bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buf) {
+        val length = checkCount(buf.getInt(), buf, 1);
+        val res    = StandardCharsets.UTF_8.decode(buf.slice(buf.position(), length)).toString();
+        buf.position(buf.position() + length);
+        return res;
+    }
+
+    /**
+     * Checks a count read from the buffer against the bytes left, so that a malformed file
+     * cannot make the reader allocate a huge array.
+     */
+    private static int checkCount(final int count, final ByteBuffer buf, final int minBytesEach) {
+        if (count < 0 || (long) count * minBytesEach > buf.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    /**
+     * Config of a seat table read back, with only its shape and the people seated.
+     */
+    private static final class StoredSeatConfig implements SeatConfig {
+
+        private final int rowCount;
+
+        private final int columnCount;
+
+        private final boolean lucky;
+
+        private final List<String> names;
+
+        private final List<String> groupLeaders;
+
+        private StoredSeatConfig(final int[] cells, final int columnCount, final boolean lucky) {
+            if (columnCount <= 0) {
+                throw new IllegalConfigException("Column count must be positive");
+            }
+            this.rowCount = Math.max(1, (cells.length + columnCount - 1) / columnCount);
+            this.columnCount = columnCount;
+            this.lucky = lucky;
+            val empty        = NamePool.POOL.intern(SeatTable.EMPTY_SEAT_PLACEHOLDER);
+            val names        = new ArrayList<String>(cells.length);
+            val groupLeaders = new ArrayList<String>();
+            for (val cell : cells) {
+                val id = cell < 0 ? ~cell : cell;
+                if (id == empty) {
+                    continue;
+                }
+                names.add(NamePool.POOL.name(id));
+                if (cell < 0) {
+                    groupLeaders.add(NamePool.POOL.name(id));
+                }
+            }
+            this.names = Collections.unmodifiableList(names);
+            this.groupLeaders = Collections.unmodifiableList(groupLeaders);
+        }
+
+        @Override
+        public int randomBetweenRows() {
+            return rowCount;
+        }
+
+        @Override
+        public boolean lucky() {
+            return lucky;
+        }
+
+        @Override
+        public void check() {
+        }
+
+        @Override
+        public int rowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int columnCount() {
+            return columnCount;
+        }
+
+        @Override
+        public List<Integer> disabledLastRowPos() {
+            return List.of();
+        }
+
+        @Override
+        public List<String> names() {
+            return names;
+        }
+
+        @Override
+        public List<String> groupLeaders() {
+            return groupLeaders;
+        }
+
+        @Override
+        public List<NamePair> separatedPairs() {
+            return List.of();
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.Strings;
+
+/**
+ * Seed utils shared by generator implementations.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class Seeds {
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private Seeds() {
+    }
+
+    /**
+     * Returns the {@code long} seed of the random service used to generate a seat table.
+     *
+     * @param seed raw seed
+     *
+     * @return the seed itself if it is an integer, 0 if it is null or empty, or its long hash code otherwise
+     *
+     * @see Strings#longHashCode(String)
+     */
+    static long toLong(final String seed) {
+        try {
+            return Long.parseLong(seed);
+        } catch (final RuntimeException e) {
+            if (seed == null || seed.isEmpty()) {
+                return 0;
+            }
+            return Strings.longHashCode(seed);
+        }
+    }
+
+    /**
+     * Returns the seed with its type appended, as shown in a seat table.
+     *
+     * @param seed raw seed
+     *
+     * @return the seed followed by " (integer)" or " (string)", or the seed itself if it is null or empty
+     */
+    static String describe(final String seed) {
+        try {
+            Long.parseLong(seed);
+            return seed + " (integer)";
+        } catch (final RuntimeException e) {
+            if (seed == null || seed.isEmpty()) {
+                return seed;
+            }
+            return seed + " (string)";
+        }
+    }
+
+}
@@ -20,10 +20,15 @@ package com.edp2021c1.randomseatgenerator.ui.node;
 
 import com.edp2021c1.randomseatgenerator.ui.FXUtils;
 import com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig;
+import com.edp2021c1.randomseatgenerator.util.config.ConfigValidator;
 import com.edp2021c1.randomseatgenerator.util.config.SeatConfigHolder;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyListProperty;
+import javafx.beans.property.ReadOnlyListWrapper;
 import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextArea;
@@ -32,7 +37,9 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import lombok.val;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Config pane.
@@ -42,6 +49,37 @@ import java.util.Objects;
  */
 public class ConfigPane extends VBox {
 
+    /**
+     * Fields of the config compared with the source, indexed by the {@code FIELD_*} constants.
+     */
+    private static final List<Function<CachedMapSeatConfig, Object>> fields = List.of(
+            CachedMapSeatConfig::getRowCount,
+            CachedMapSeatConfig::getColumnCount,
+            CachedMapSeatConfig::getRandomBetweenRows,
+            CachedMapSeatConfig::getDisabledLastRowPos,
+            CachedMapSeatConfig::getNames,
+            CachedMapSeatConfig::getGroupLeaders,
+            CachedMapSeatConfig::getSeparatedPairs,
+            CachedMapSeatConfig::getLucky,
+            CachedMapSeatConfig::getAdjacencyRule
+    );
+
+    private static final int FIELD_ROW_COUNT = 0;
+
+    private static final int FIELD_COLUMN_COUNT = 1;
+
+    private static final int FIELD_RANDOM_BETWEEN_ROWS = 2;
+
+    private static final int FIELD_DISABLED_LAST_ROW_POS = 3;
+
+    private static final int FIELD_NAMES = 4;
+
+    private static final int FIELD_GROUP_LEADERS = 5;
+
+    private static final int FIELD_SEPARATED_PAIRS = 6;
+
+    private static final int FIELD_LUCKY = 7;
+
     private final IntegerProperty rowCountProperty;
 
     private final IntegerProperty columnCountProperty;
@@ -68,6 +106,29 @@ public class ConfigPane extends VBox {
 
     private final BooleanProperty applyButtonDisabledProperty;
 
+    /**
+     * Values of the source when {@link #baselineVersion} was read.
+     */
+    private final Object[] baseline = new Object[fields.size()];
+
+    /**
+     * Whether each field differs from {@link #baseline}.
+     */
+    private final boolean[] dirty = new boolean[fields.size()];
+
+    private int dirtyCount;
+
+    private long baselineVersion = -1;
+
+    /**
+     * Problems found in {@link #content} by {@link #validator}.
+     */
+    private final ReadOnlyListWrapper<ConfigValidator.Diagnostic> diagnostics =
+            new ReadOnlyListWrapper<>(FXCollections.observableArrayList());
+
+    private final ConfigValidator validator =
+            new ConfigValidator(list -> Platform.runLater(() -> diagnostics.setAll(list)));
+
     /**
      * Constructs an instance.
      *
@@ -133,49 +194,99 @@ public class ConfigPane extends VBox {
         if (applyBtnDisabledProperty == null) {
             return;
         }
+        // 只比较改动的项，不再每次都复制并解析整个配置
         rowCountProperty.subscribe(newValue -> {
             content.setRowCount(newValue.intValue());
-            refreshState();
+            fieldChanged(FIELD_ROW_COUNT);
         });
         columnCountProperty.subscribe(newValue -> {
             content.setColumnCount(newValue.intValue());
-            refreshState();
+            fieldChanged(FIELD_COLUMN_COUNT);
         });
         randomBetweenRowsProperty.subscribe(newValue -> {
             content.setRandomBetweenRows(newValue.intValue());
-            refreshState();
+            fieldChanged(FIELD_RANDOM_BETWEEN_ROWS);
         });
         disabledLastRowPosProperty.subscribe(newValue -> {
             content.setDisabledLastRowPos(newValue);
-            refreshState();
+            fieldChanged(FIELD_DISABLED_LAST_ROW_POS);
         });
         nameListProperty.subscribe(newValue -> {
             content.setNames(newValue);
-            refreshState();
+            fieldChanged(FIELD_NAMES);
         });
         groupLeaderListProperty.subscribe(newValue -> {
             content.setGroupLeaders(newValue);
-            refreshState();
+            fieldChanged(FIELD_GROUP_LEADERS);
         });
         separateListProperty.subscribe(newValue -> {
             content.setSeparatedPairs(newValue);
-            refreshState();
+            fieldChanged(FIELD_SEPARATED_PAIRS);
         });
         luckyOptionProperty.subscribe(newValue -> {
             content.setLucky(newValue);
-            refreshState();
+            fieldChanged(FIELD_LUCKY);
         });
     }
 
-    private boolean checkEquals() {
-        return Objects.equals(content, source.getClone());
+    /**
+     * Reads the values of the source again if it has changed since last read,
+     * and compares all the fields with them.
+     *
+     * @return whether the source is read again
+     */
+    private boolean rebaseIfOutdated() {
+        val version = source.getVersion();
+        if (version == baselineVersion) {
+            return false;
+        }
+        val clone = source.getClone();
+        baselineVersion = version;
+        dirtyCount = 0;
+        for (var i = 0; i < baseline.length; i++) {
+            baseline[i] = fields.get(i).apply(clone);
+            dirty[i] = !Objects.equals(fields.get(i).apply(content), baseline[i]);
+            if (dirty[i]) {
+                dirtyCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates the dirty state of a field, in O(1) unless the source has changed.
+     *
+     * @param field index of the field changed
+     */
+    private void fieldChanged(final int field) {
+        if (!rebaseIfOutdated()) {
+            val d = !Objects.equals(fields.get(field).apply(content), baseline[field]);
+            if (d != dirty[field]) {
+                dirty[field] = d;
+                dirtyCount += d ? 1 : -1;
+            }
+        }
+        applyButtonDisabledProperty.set(dirtyCount == 0);
+        validator.submit(content);
     }
 
     /**
      * Refreshes the state of {@link #applyButtonDisabledProperty}.
      */
     public void refreshState() {
-        applyButtonDisabledProperty.set(checkEquals());
+        rebaseIfOutdated();
+        applyButtonDisabledProperty.set(dirtyCount == 0);
+    }
+
+    /**
+     * Returns the problems found in the current config, updated in the background while editing.
+     * <p>
+     * Always empty if the pane is constructed without an apply button property.
+     *
+     * @return the property of the problems found
+     */
+    public ReadOnlyListProperty<ConfigValidator.Diagnostic> diagnosticsProperty() {
+        return diagnostics.getReadOnlyProperty();
     }
 
     /**
@@ -26,11 +26,12 @@ import com.edp2021c1.randomseatgenerator.util.OperatingSystem;
 import com.edp2021c1.randomseatgenerator.util.PathWrapper;
 import com.edp2021c1.randomseatgenerator.util.Strings;
 import com.edp2021c1.randomseatgenerator.util.config.AppPropertiesHolder;
-import com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig;
 import com.edp2021c1.randomseatgenerator.util.config.SeatConfigHolder;
+import com.edp2021c1.randomseatgenerator.util.config.SeatConfigSnapshot;
 import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
 import com.edp2021c1.randomseatgenerator.util.useroutput.CrashReporter;
 import com.edp2021c1.randomseatgenerator.util.useroutput.Notice;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.StringProperty;
 import javafx.geometry.Insets;
@@ -45,6 +46,7 @@ import lombok.Getter;
 import lombok.val;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -70,7 +72,6 @@ public final class MainWindow extends DecoratedStage {
 
     private final ObjectProperty<SeatTable> seatTable;
 
-    private final CachedMapSeatConfig config;
 
     private final FileChooser fileChooser;
 
@@ -88,7 +89,6 @@ public final class MainWindow extends DecoratedStage {
         }
 
         cfHolder = SeatConfigHolder.global();
-        config = cfHolder.getClone();
 
         /* *************************************************************************
          *                                                                         *
@@ -111,8 +111,9 @@ public final class MainWindow extends DecoratedStage {
         seed = seedInput.textProperty();
 
         // 座位表
+        final SeatConfigSnapshot config;
         try {
-            config.check();
+            config = cfHolder.getSnapshot();
         } catch (final IllegalConfigException e) {
             throw new IllegalConfigException(List.of(
                     new IllegalConfigException("Illegal config loaded from " + cfHolder.getConfigPath()),
@@ -143,7 +144,9 @@ public final class MainWindow extends DecoratedStage {
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter("Excel 工作薄", "*.xlsx"),
                 new FileChooser.ExtensionFilter("Excel 97-2004 工作薄", "*.xls"),
-                new FileChooser.ExtensionFilter("CSV 逗号分隔", "*.csv")
+                new FileChooser.ExtensionFilter("CSV 逗号分隔", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("座位表数据", "*.rsgt")
         );
 
         fileChooser.setInitialDirectory(new File(Objects.requireNonNullElseGet(
@@ -239,6 +242,19 @@ public final class MainWindow extends DecoratedStage {
         });
 
         setOnCloseRequest(event -> close());
+
+        // 配置文件被其他程序修改时重新载入
+        try {
+            cfHolder.addReloadListener(() -> Platform.runLater(() -> {
+                try {
+                    configChanged();
+                } catch (final Throwable e) {
+                    CrashReporter.report(e);
+                }
+            }));
+        } catch (final IOException e) {
+            LOG.warning("Failed to watch config file: " + e);
+        }
     }
 
     private void generateSeatTable() {
@@ -248,7 +264,7 @@ public final class MainWindow extends DecoratedStage {
             }
 
             val seed1 = seed.get();
-            seatTable.set(SeatTable.generate(cfHolder.getClone().checkAndReturn(), seed1));
+            seatTable.set(SeatTable.generate(cfHolder.getSnapshot(), seed1));
             LOG.info(System.lineSeparator() + seatTable.get());
             previousSeed = seed1;
             generated = true;
@@ -303,7 +319,7 @@ public final class MainWindow extends DecoratedStage {
      * Action to do if config is changed.
      */
     public void configChanged() {
-        seatTableView.setEmptySeatTable(config.putAllAndReturn(cfHolder.getClone()).refresh());
+        seatTableView.setEmptySeatTable(cfHolder.getSnapshot());
         generated = false;
         previousSeed = null;
     }
@@ -27,9 +27,12 @@ import com.edp2021c1.randomseatgenerator.util.OperatingSystem;
 import com.edp2021c1.randomseatgenerator.util.PathWrapper;
 import com.edp2021c1.randomseatgenerator.util.Strings;
 import com.edp2021c1.randomseatgenerator.util.config.AppPropertiesHolder;
+import com.edp2021c1.randomseatgenerator.util.config.ConfigValidator;
+import com.edp2021c1.randomseatgenerator.util.config.ProfileStore;
 import com.edp2021c1.randomseatgenerator.util.config.SeatConfigHolder;
 import com.edp2021c1.randomseatgenerator.util.useroutput.CrashReporter;
 import com.edp2021c1.randomseatgenerator.util.useroutput.Notice;
+import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -37,6 +40,7 @@ import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import lombok.Getter;
 import lombok.val;
@@ -44,6 +48,7 @@ import lombok.val;
 import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import static com.edp2021c1.randomseatgenerator.ui.FXUtils.*;
 import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
@@ -66,6 +71,8 @@ public final class SettingsDialog extends DecoratedStage {
 
     private final ConfigPane configPane;
 
+    private final ComboBox<String> profileBox;
+
     /**
      * Creates an instance.
      */
@@ -108,6 +115,21 @@ public final class SettingsDialog extends DecoratedStage {
 
         val loadConfigBtn = createButton("从文件加载", 90, 26);
 
+        // 已保存的方案，只读取索引
+        profileBox = new ComboBox<>();
+        profileBox.setEditable(true);
+        profileBox.setPromptText("方案名称");
+        profileBox.setPrefWidth(160);
+        try {
+            profileBox.getItems().setAll(ProfileStore.global().names());
+        } catch (final IOException e) {
+            LOG.warning("Failed to open profile store: " + e);
+        }
+
+        val loadProfileBtn = createButton("载入方案", 80, 26);
+
+        val saveProfileBtn = createButton("保存方案", 80, 26);
+
         val applyBtn = createButton("应用", 80, 26);
         applyBtn.setDisable(true);
 
@@ -127,11 +149,23 @@ public final class SettingsDialog extends DecoratedStage {
         );
         configPane.setContent(cfHolder.getClone());
 
-        val loadConfigBtnBox = new HBox(loadConfigBtn);
+        val loadConfigBtnBox = new HBox(loadConfigBtn, profileBox, loadProfileBtn, saveProfileBtn);
         loadConfigBtnBox.setPrefHeight(45);
         loadConfigBtnBox.setAlignment(Pos.CENTER);
 
-        val appConfigBox = new VBox(configPane, loadConfigBtnBox);
+        // 编辑时实时显示配置中的问题
+        val diagnosticsLabel = new Label();
+        diagnosticsLabel.setWrapText(true);
+        diagnosticsLabel.setTextFill(Color.RED);
+        diagnosticsLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> configPane.diagnosticsProperty().stream()
+                        .map(ConfigValidator.Diagnostic::toString)
+                        .collect(Collectors.joining(System.lineSeparator())),
+                configPane.diagnosticsProperty()
+        ));
+        diagnosticsLabel.managedProperty().bind(configPane.diagnosticsProperty().emptyProperty().not());
+
+        val appConfigBox = new VBox(configPane, diagnosticsLabel, loadConfigBtnBox);
 
         val iconView = new ImageView(getIcon());
         iconView.setFitWidth(275);
@@ -186,6 +220,9 @@ public final class SettingsDialog extends DecoratedStage {
                 groupLeaderListInput,
                 separateListInput,
                 loadConfigBtn,
+                profileBox,
+                loadProfileBtn,
+                saveProfileBtn,
                 applyBtn,
                 confirmBtn,
                 cancelBtn
@@ -212,6 +249,10 @@ public final class SettingsDialog extends DecoratedStage {
 
         loadConfigBtn.setOnAction(event -> loadConfig());
 
+        loadProfileBtn.setOnAction(event -> loadProfile());
+
+        saveProfileBtn.setOnAction(event -> saveProfile());
+
         applyBtn.setOnAction(event -> applyConfig());
 
         versionLink.setOnAction(event -> DesktopUtils.browseIfSupported(VERSION_PAGE_URI));
@@ -279,6 +320,42 @@ public final class SettingsDialog extends DecoratedStage {
         }
     }
 
+    private void loadProfile() {
+        val name = profileBox.getValue();
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        try {
+            configPane.setContent(ProfileStore.global().load(name));
+        } catch (final IOException e) {
+            LOG.warning("Failed to load profile " + name);
+            LOG.warning(Strings.getStackTrace(e));
+            MessageDialog.showMessage(this, Notice.of("载入方案失败"));
+        } catch (final Throwable e) {
+            CrashReporter.report(e);
+        }
+    }
+
+    private void saveProfile() {
+        val name = profileBox.getValue();
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        try {
+            val store = ProfileStore.global();
+            store.save(name, configPane.getContent());
+            profileBox.getItems().setAll(store.names());
+            profileBox.setValue(name);
+            MessageDialog.showMessage(this, Notice.of("已保存方案 " + name));
+        } catch (final IOException e) {
+            LOG.warning("Failed to save profile " + name);
+            LOG.warning(Strings.getStackTrace(e));
+            MessageDialog.showMessage(this, Notice.of("保存方案失败"));
+        } catch (final Throwable e) {
+            CrashReporter.report(e);
+        }
+    }
+
     private void confirmConfig() {
         applyConfig();
         close();
@@ -55,8 +55,10 @@ public final class Metadata {
                     CONSOLE MODE ONLY OPTIONS:
                     | --nogui              | Enters the console mode without launching GUI                              |
                     | --config-path=<path> | Sets the path of the config used for generating seat table (only for once) |
+                    | --profile=<name>     | Uses the saved profile of the name instead (ignored with --config-path)    |
                     | --seed=<value>       | Sets the seed used to generate the seat table, default to a random string  |
                     | --output-path=<path> | Sets the output file or directory path (only for once)                     |
+                    | --format=<name>      | Sets the output format (xlsx/xls/csv/json_lines/binary), default by suffix |
                     | --open-result        | Opens the output file after exporting                                      |
                                         
                     """;
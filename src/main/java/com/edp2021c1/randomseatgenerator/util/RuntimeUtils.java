@@ -135,6 +135,31 @@ public final class RuntimeUtils {
         }, 0L, waitingMillis);
     }
 
+    /**
+     * Runs a task once after a delay, on the global timer.
+     * <p>
+     * If the timer is already cancelled on exit, the task is run at once on the current thread.
+     *
+     * @param taskToRun     task to run
+     * @param waitingMillis millis to wait before running
+     *
+     * @return the scheduled task, which can be cancelled
+     */
+    public static TimerTask runLater(final Runnable taskToRun, final long waitingMillis) {
+        val task = new TimerTask() {
+            @Override
+            public void run() {
+                taskToRun.run();
+            }
+        };
+        try {
+            timer.schedule(task, waitingMillis);
+        } catch (final IllegalStateException e) {
+            taskToRun.run();
+        }
+        return task;
+    }
+
     /**
      * Returns a thread that matches the given ID,
      * null if thread does not exist or is not live.
@@ -164,6 +189,9 @@ public final class RuntimeUtils {
 
     /**
      * Runs a {@code Supplier} task with a timeout.
+     * <p>
+     * The task is cancelled and its thread is interrupted if the wait timed out or is interrupted,
+     * so a task that checks interruption stops instead of running on in the background.
      *
      * @param task     to run
      * @param timeout  to wait before throwing a {@link TimeoutException}
@@ -181,7 +209,13 @@ public final class RuntimeUtils {
      */
     public static <T> T runWithTimeout(final Supplier<T> task, final long timeout, final TimeUnit timeUnit)
             throws TimeoutException, ExecutionException, InterruptedException, CancellationException {
-        return executorService.submit(task::get).get(timeout, timeUnit);
+        val future = executorService.submit(task::get);
+        try {
+            return future.get(timeout, timeUnit);
+        } catch (final TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
     }
 
 }
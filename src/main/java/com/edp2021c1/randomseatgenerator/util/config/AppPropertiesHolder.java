@@ -20,22 +20,39 @@ package com.edp2021c1.randomseatgenerator.util.config;
 
 import com.edp2021c1.randomseatgenerator.util.Metadata;
 import com.edp2021c1.randomseatgenerator.util.PathWrapper;
+import com.edp2021c1.randomseatgenerator.util.RuntimeUtils;
 import lombok.val;
 
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.file.Path;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.TimerTask;
+
+import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
 
 /**
  * Holder of the application's common properties.
+ * <p>
+ * Changes are kept in memory and stored on the global timer thread
+ * {@link #STORE_DELAY_MILLIS} after the last change, so that a burst of changes,
+ * such as moving or resizing a window, is stored only once and never blocks the FX thread.
+ * The properties are copied while holding the lock of the holder and written outside it,
+ * so setting a property never waits for a store in progress.
+ * Changes not stored yet are stored on exit.
  *
  * @author Calboot
  * @see Properties
  * @since 1.6.0
  */
-public class AppPropertiesHolder {
+public final class AppPropertiesHolder {
+
+    /**
+     * Time to wait after the last change before storing the properties.
+     */
+    public static final long STORE_DELAY_MILLIS = 1000;
 
     private static final PathWrapper globalPath = PathWrapper.wrap(Metadata.DATA_DIR.toString(), "config", "app.properties");
 
@@ -53,6 +70,28 @@ public class AppPropertiesHolder {
 
     private final PathWrapper path;
 
+    /**
+     * Pending store of the properties, null if not scheduled.
+     */
+    private TimerTask storeTask;
+
+    private boolean dirty;
+
+    /**
+     * Lock held while writing the file, so that the copies are written one at a time.
+     */
+    private final Object storeLock = new Object();
+
+    /**
+     * Version of the last copy taken, guarded by this holder.
+     */
+    private long copyVersion;
+
+    /**
+     * Version of the last copy written, guarded by {@link #storeLock}.
+     */
+    private long storedVersion;
+
     /**
      * Constructs an instance.
      *
@@ -64,6 +103,7 @@ public class AppPropertiesHolder {
         path = PathWrapper.wrap(propertiesPath);
         appProperties = new Properties();
         init();
+        RuntimeUtils.addExitHook(this::flush);
     }
 
     /**
@@ -82,31 +122,70 @@ public class AppPropertiesHolder {
         appProperties.load(new StringReader(path.readString()));
     }
 
-    private void store() {
-        val str = new StringWriter();
-        try {
-            appProperties.store(str, null);
-            path.writeString(str.toString());
-        } catch (final IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Stores the properties now if changed since last stored.
+     */
+    public void flush() {
+        final Properties copy;
+        final long version;
+        synchronized (this) {
+            if (storeTask != null) {
+                storeTask.cancel();
+                storeTask = null;
+            }
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            copy = (Properties) appProperties.clone();
+            version = ++copyVersion;
+        }
+        synchronized (storeLock) {
+            // 较新的副本已写入
+            if (version <= storedVersion) {
+                return;
+            }
+            storedVersion = version;
+            val str = new StringWriter();
+            try {
+                copy.store(str, null);
+                path.writeString(str.toString());
+            } catch (final IOException e) {
+                if (LOG.isOpen()) {
+                    LOG.warning("Failed to store properties to %s: %s".formatted(path, e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules storing the properties, replacing the store scheduled before.
+     */
+    private synchronized void changed() {
+        dirty = true;
+        if (storeTask != null) {
+            storeTask.cancel();
         }
+        storeTask = RuntimeUtils.runLater(this::flush, STORE_DELAY_MILLIS);
     }
 
     /**
-     * Sets and stores a property.
+     * Sets a property, which is stored later.
      *
      * @param key   to be placed into this property list
      * @param value the value corresponding to {@code key}
      *
      * @see Properties#setProperty(String, String)
+     * @see #flush()
      */
     public void setProperty(final String key, final Object value) {
         if (value != null) {
-            appProperties.setProperty(key, value.toString());
-            store();
-        } else if (appProperties.containsKey(key)) {
-            appProperties.remove(key);
-            store();
+            val str = value.toString();
+            if (!Objects.equals(appProperties.setProperty(key, str), str)) {
+                changed();
+            }
+        } else if (appProperties.remove(key) != null) {
+            changed();
         }
     }
 
@@ -20,6 +20,7 @@ package com.edp2021c1.randomseatgenerator.util.config;
 
 import com.alibaba.fastjson2.JSONException;
 import com.alibaba.fastjson2.JSONObject;
+import com.edp2021c1.randomseatgenerator.core.AdjacencyRule;
 import com.edp2021c1.randomseatgenerator.core.NamePair;
 import com.edp2021c1.randomseatgenerator.core.SeatConfig;
 import com.edp2021c1.randomseatgenerator.util.Strings;
@@ -28,6 +29,7 @@ import lombok.NonNull;
 import lombok.val;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,56 +52,63 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
      *
      * @see SeatConfig#rowCount()
      */
-    private static final String KEY_ROW_COUNT = "row_count";
+    static final String KEY_ROW_COUNT = "row_count";
 
     /**
      * Key of {@code columnCount}.
      *
      * @see SeatConfig#columnCount()
      */
-    private static final String KEY_COLUMN_COUNT = "column_count";
+    static final String KEY_COLUMN_COUNT = "column_count";
 
     /**
      * Key of {@code randomBetweenRows}.
      *
      * @see SeatConfig#randomBetweenRows()
      */
-    private static final String KEY_RANDOM_BETWEEN_ROWS = "random_between_rows";
+    static final String KEY_RANDOM_BETWEEN_ROWS = "random_between_rows";
 
     /**
      * Key of {@code disabledLastRowPos}.
      *
      * @see SeatConfig#disabledLastRowPos()
      */
-    private static final String KEY_DISABLED_LAST_ROW_POS = "last_row_pos_cannot_be_chosen";
+    static final String KEY_DISABLED_LAST_ROW_POS = "last_row_pos_cannot_be_chosen";
 
     /**
      * Key of {@code names}.
      *
      * @see SeatConfig#names()
      */
-    private static final String KEY_NAMES = "person_sort_by_height";
+    static final String KEY_NAMES = "person_sort_by_height";
 
     /**
      * Key of {@code groupLeaders}.
      *
      * @see SeatConfig#groupLeaders()
      */
-    private static final String KEY_GROUP_LEADERS = "group_leader_list";
+    static final String KEY_GROUP_LEADERS = "group_leader_list";
 
     /**
      * Key of {@code separatedPairs}.
      *
      * @see SeatConfig#separatedPairs()
      */
-    private static final String KEY_SEPARATED_PAIRS = "separate_list";
+    static final String KEY_SEPARATED_PAIRS = "separate_list";
 
     /**
      * Key of {@code lucky}.
      *
      * @see SeatConfig#lucky()
      */
-    private static final String KEY_LUCKY = "lucky_option";
+    static final String KEY_LUCKY = "lucky_option";
+
+    /**
+     * Key of {@code adjacencyRule}.
+     *
+     * @see SeatConfig#adjacencyRule()
+     */
+    static final String KEY_ADJACENCY_RULE = "separate_rule";
 
     private final JSONObject config;
 
@@ -119,6 +128,8 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
 
     private boolean lucky;
 
+    private AdjacencyRule adjacencyRule;
+
     /**
      * Constructs an instance.
      *
@@ -136,7 +147,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         config = new JSONObject(8);
     }
 
-    private List<Integer> regenerateDisabledLastRowPos() throws IllegalConfigException {
+    List<Integer> regenerateDisabledLastRowPos() throws IllegalConfigException {
         val disabledLastRowPos = getDisabledLastRowPos();
         if (disabledLastRowPos == null || disabledLastRowPos.isBlank()) {
             return new ArrayList<>();
@@ -147,7 +158,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return Stream.of(disabledLastRowPos.split(" ")).map(Integer::parseUnsignedInt).collect(Collectors.toList());
     }
 
-    private List<String> regenerateNames() throws IllegalConfigException {
+    List<String> regenerateNames() throws IllegalConfigException {
         val names = getNames();
         if (names == null) {
             throw new IllegalConfigException("Name list cannot be null");
@@ -167,7 +178,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return l;
     }
 
-    private List<String> regenerateGroupLeaders() throws IllegalConfigException {
+    List<String> regenerateGroupLeaders() throws IllegalConfigException {
         val groupLeaders = getGroupLeaders();
         if (groupLeaders == null) {
             throw new IllegalConfigException("Group leader list cannot be null");
@@ -189,14 +200,22 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return separatedPairs.lines().filter(s -> !s.isBlank()).map(NamePair::new).collect(Collectors.toList());
     }
 
-    private boolean regenerateLucky() {
+    AdjacencyRule regenerateAdjacencyRule() throws IllegalConfigException {
+        return AdjacencyRule.parse(getAdjacencyRule());
+    }
+
+    boolean regenerateLucky() {
         return Objects.requireNonNullElse(getLucky(), true);
     }
 
     private int regenerateRandomBetweenRows() throws IllegalConfigException {
+        return regenerateRandomBetweenRows(regenerateRowCount());
+    }
+
+    int regenerateRandomBetweenRows(final int rowCount) throws IllegalConfigException {
         val randomBetweenRows = getRandomBetweenRows();
         if (randomBetweenRows == null || randomBetweenRows == 0) {
-            return regenerateRowCount();
+            return rowCount;
         }
         if (randomBetweenRows < 0) {
             throw new IllegalConfigException("Random between rows cannot be less than 0");
@@ -204,7 +223,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return randomBetweenRows;
     }
 
-    private int regenerateRowCount() throws IllegalConfigException {
+    int regenerateRowCount() throws IllegalConfigException {
         val rowCount = getRowCount();
         if (rowCount == null || rowCount == 0) {
             throw new IllegalConfigException("Row count cannot be equal to or less than 0");
@@ -212,7 +231,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return rowCount;
     }
 
-    private int regenerateColumnCount() throws IllegalConfigException {
+    int regenerateColumnCount() throws IllegalConfigException {
         val columnCount = getColumnCount();
         if (columnCount == null || columnCount == 0) {
             throw new IllegalConfigException("Column count cannot be equal to or less than 0");
@@ -241,6 +260,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         groupLeaders = regenerateGroupLeaders();
         separatedPairs = regenerateSeparatedPairs();
         lucky = regenerateLucky();
+        adjacencyRule = regenerateAdjacencyRule();
         return this;
     }
 
@@ -254,41 +274,66 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return lucky;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The values are parsed in the same way as {@link #snapshot()} does,
+     * so prefer {@code snapshot()} if the parsed values are used after checking.
+     */
     @Override
     public void check() throws IllegalConfigException {
-        val causes = new ArrayList<IllegalConfigException>();
-        try {
-            regenerateRowCount();
-        } catch (final IllegalConfigException e) {
-            causes.add(e);
-        }
-        try {
-            regenerateColumnCount();
-        } catch (final IllegalConfigException e) {
-            causes.add(e);
-        }
-        try {
-            regenerateDisabledLastRowPos();
-        } catch (final IllegalConfigException e) {
-            causes.add(e);
-        }
-        try {
-            regenerateNames();
-        } catch (final IllegalConfigException e) {
-            causes.add(e);
-        }
-        try {
-            regenerateGroupLeaders();
-        } catch (final IllegalConfigException e) {
-            causes.add(e);
+        snapshot();
+    }
+
+    /**
+     * Checks format and parses every value only once into an immutable snapshot.
+     * <p>
+     * Unlike {@link #refresh()}, the cached values of {@code this} are left unchanged.
+     *
+     * @return the snapshot
+     *
+     * @throws IllegalConfigException if this instance has an illegal format,
+     *                                containing information of all the wrong-formatted values
+     */
+    public SeatConfigSnapshot snapshot() throws IllegalConfigException {
+        val causes             = new ArrayList<IllegalConfigException>();
+        val rowCount           = parse(this::regenerateRowCount, causes);
+        val columnCount        = parse(this::regenerateColumnCount, causes);
+        // 行数有误时不再重复报错
+        val randomBetweenRows  = rowCount == null ? null : parse(() -> regenerateRandomBetweenRows(rowCount), causes);
+        val disabledLastRowPos = parse(this::regenerateDisabledLastRowPos, causes);
+        val names              = parse(this::regenerateNames, causes);
+        val groupLeaders       = parse(this::regenerateGroupLeaders, causes);
+        val separatedPairs     = parse(this::regenerateSeparatedPairs, causes);
+        val lucky              = parse(this::regenerateLucky, causes);
+        val adjacencyRule      = parse(this::regenerateAdjacencyRule, causes);
+        if (!causes.isEmpty()) {
+            throw new IllegalConfigException(causes);
         }
+        return new SeatConfigSnapshot(
+                rowCount,
+                columnCount,
+                randomBetweenRows,
+                disabledLastRowPos,
+                names,
+                groupLeaders,
+                separatedPairs,
+                lucky,
+                adjacencyRule
+        );
+    }
+
+    /**
+     * Parses a value, adding the exception to the causes instead of throwing it.
+     *
+     * @return the value parsed, null if failed
+     */
+    private static <T> T parse(final Supplier<T> parser, final List<IllegalConfigException> causes) {
         try {
-            regenerateSeparatedPairs();
+            return parser.get();
         } catch (final IllegalConfigException e) {
             causes.add(e);
-        }
-        if (!causes.isEmpty()) {
-            throw new IllegalConfigException(causes);
+            return null;
         }
     }
 
@@ -322,6 +367,11 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         return separatedPairs;
     }
 
+    @Override
+    public AdjacencyRule adjacencyRule() throws IllegalConfigException {
+        return adjacencyRule;
+    }
+
     /**
      * Checks format and returns {@code this}.
      *
@@ -350,6 +400,7 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
                 && Objects.equals(other.getNames(), getNames())
                 && Objects.equals(other.getGroupLeaders(), getGroupLeaders())
                 && Objects.equals(other.getSeparatedPairs(), getSeparatedPairs())
+                && Objects.equals(other.getAdjacencyRule(), getAdjacencyRule())
                 && other.getLucky() == getLucky();
     }
 
@@ -459,6 +510,24 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
         put(KEY_SEPARATED_PAIRS, value);
     }
 
+    /**
+     * Returns raw adjacency rule value.
+     *
+     * @return raw adjacency rule value
+     */
+    public String getAdjacencyRule() {
+        return getString(KEY_ADJACENCY_RULE);
+    }
+
+    /**
+     * Sets raw adjacency rule value.
+     *
+     * @param value raw value to be set
+     */
+    public void setAdjacencyRule(final String value) {
+        put(KEY_ADJACENCY_RULE, value);
+    }
+
     /**
      * Returns raw group leader list value.
      *
@@ -614,7 +683,8 @@ public class CachedMapSeatConfig implements Map<String, Object>, SeatConfig {
                  KEY_NAMES,
                  KEY_GROUP_LEADERS,
                  KEY_SEPARATED_PAIRS,
-                 KEY_LUCKY -> {
+                 KEY_LUCKY,
+                 KEY_ADJACENCY_RULE -> {
                 if (value == null) {
                     return remove(key);
                 }
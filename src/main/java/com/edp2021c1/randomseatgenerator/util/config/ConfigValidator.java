@@ -0,0 +1,338 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import com.edp2021c1.randomseatgenerator.core.AdjacencyRule;
+import com.edp2021c1.randomseatgenerator.core.FeasibilityAnalyzer;
+import com.edp2021c1.randomseatgenerator.core.NamePair;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig.*;
+
+/**
+ * Validates a config in the background while it is being edited.
+ * <p>
+ * Configs submitted are validated after {@link #DEBOUNCE_MILLIS} without another submission,
+ * on a background thread shared by all validators, so editing never waits for validating.
+ * Only the fields changed since last validated are parsed again,
+ * and for the separated pairs, only the lines not seen last time are parsed again.
+ * The diagnostics of all the fields, and of the whole config if every field is valid,
+ * are then published to the listener.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class ConfigValidator {
+
+    /**
+     * Time to wait after the last submission before validating.
+     */
+    public static final long DEBOUNCE_MILLIS = 300;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("Config Validator").factory()
+    );
+
+    /**
+     * Raw value of a field before it is first validated.
+     */
+    private static final Object UNSEEN = new Object();
+
+    private static final int ROW_COUNT = 0;
+
+    private final Consumer<List<Diagnostic>> listener;
+
+    // 以下字段只在校验线程中访问
+
+    private final Field[] fields = {
+            new Field(KEY_ROW_COUNT, CachedMapSeatConfig::getRowCount, simple(CachedMapSeatConfig::regenerateRowCount)),
+            new Field(KEY_COLUMN_COUNT, CachedMapSeatConfig::getColumnCount, simple(CachedMapSeatConfig::regenerateColumnCount)),
+            // 随机行数依赖行数，行数有误时不重复报错
+            new Field(
+                    KEY_RANDOM_BETWEEN_ROWS,
+                    c -> Arrays.asList(c.getRandomBetweenRows(), c.getRowCount()),
+                    (c, errors) -> this.fields[ROW_COUNT].value == null
+                            ? null
+                            : c.regenerateRandomBetweenRows((Integer) this.fields[ROW_COUNT].value)
+            ),
+            new Field(
+                    KEY_DISABLED_LAST_ROW_POS,
+                    CachedMapSeatConfig::getDisabledLastRowPos,
+                    simple(CachedMapSeatConfig::regenerateDisabledLastRowPos)
+            ),
+            new Field(KEY_NAMES, CachedMapSeatConfig::getNames, simple(CachedMapSeatConfig::regenerateNames)),
+            new Field(KEY_GROUP_LEADERS, CachedMapSeatConfig::getGroupLeaders, simple(CachedMapSeatConfig::regenerateGroupLeaders)),
+            new Field(KEY_SEPARATED_PAIRS, CachedMapSeatConfig::getSeparatedPairs, this::parseSeparatedPairs),
+            new Field(KEY_LUCKY, CachedMapSeatConfig::getLucky, simple(CachedMapSeatConfig::regenerateLucky)),
+            new Field(KEY_ADJACENCY_RULE, CachedMapSeatConfig::getAdjacencyRule, simple(CachedMapSeatConfig::regenerateAdjacencyRule))
+    };
+
+    /**
+     * Separated pairs parsed last time, either a {@link NamePair} or an {@link IllegalConfigException}, by line.
+     */
+    private Map<String, Object> pairLines = new HashMap<>();
+
+    private List<String> configErrors = List.of();
+
+    // 以上字段只在校验线程中访问
+
+    private CachedMapSeatConfig pending;
+
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * Creates a validator.
+     *
+     * @param listener called on the background thread with the diagnostics every time a config is validated
+     */
+    public ConfigValidator(final Consumer<List<Diagnostic>> listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    private static Parser simple(final Function<CachedMapSeatConfig, Object> parser) {
+        return (config, errors) -> parser.apply(config);
+    }
+
+    /**
+     * Submits a config to validate, replacing the one submitted before but not validated yet.
+     * <p>
+     * The config is copied, so it can be changed right after submitted.
+     *
+     * @param config to validate
+     */
+    public synchronized void submit(final CachedMapSeatConfig config) {
+        pending = config.cloneThis();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = executor.schedule(this::validate, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the validation not started yet.
+     */
+    public synchronized void cancel() {
+        pending = null;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void validate() {
+        final CachedMapSeatConfig config;
+        synchronized (this) {
+            config = pending;
+            pending = null;
+        }
+        if (config == null) {
+            return;
+        }
+
+        var changed = false;
+        for (val field : fields) {
+            changed |= field.update(config);
+        }
+
+        if (changed) {
+            configErrors = checkConfig();
+        }
+
+        val res = new ArrayList<Diagnostic>();
+        for (val field : fields) {
+            for (val error : field.errors) {
+                res.add(new Diagnostic(field.key, error));
+            }
+        }
+        for (val error : configErrors) {
+            res.add(new Diagnostic(null, error));
+        }
+        listener.accept(Collections.unmodifiableList(res));
+    }
+
+    /**
+     * Checks the config as a whole, if every field is valid.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> checkConfig() {
+        for (val field : fields) {
+            if (!field.errors.isEmpty()) {
+                return List.of();
+            }
+        }
+        val snapshot = new SeatConfigSnapshot(
+                (Integer) fields[0].value,
+                (Integer) fields[1].value,
+                (Integer) fields[2].value,
+                (List<Integer>) fields[3].value,
+                (List<String>) fields[4].value,
+                (List<String>) fields[5].value,
+                (List<NamePair>) fields[6].value,
+                (Boolean) fields[7].value,
+                (AdjacencyRule) fields[8].value
+        );
+        try {
+            return FeasibilityAnalyzer.analyze(snapshot).getProblems();
+        } catch (final IllegalConfigException e) {
+            return messagesOf(e);
+        }
+    }
+
+    private static List<String> messagesOf(final IllegalConfigException e) {
+        val message = e.getLocalizedMessage();
+        return message == null ? List.of() : message.lines().filter(s -> !s.isBlank()).toList();
+    }
+
+    /**
+     * Parses the separated pairs line by line, reusing the results of the lines seen last time.
+     */
+    private List<NamePair> parseSeparatedPairs(final CachedMapSeatConfig config, final List<String> errors) {
+        val separatedPairs = config.getSeparatedPairs();
+        if (separatedPairs == null) {
+            throw new IllegalConfigException("Separated list cannot be null");
+        }
+        val lines = new HashMap<String, Object>();
+        val res   = new ArrayList<NamePair>();
+        for (val line : (Iterable<String>) separatedPairs.lines()::iterator) {
+            if (line.isBlank()) {
+                continue;
+            }
+            var parsed = lines.get(line);
+            if (parsed == null) {
+                parsed = pairLines.get(line);
+            }
+            if (parsed == null) {
+                try {
+                    parsed = new NamePair(line);
+                } catch (final IllegalConfigException e) {
+                    parsed = e;
+                }
+            }
+            lines.put(line, parsed);
+            if (parsed instanceof final NamePair pair) {
+                res.add(pair);
+            } else {
+                errors.add(((IllegalConfigException) parsed).getLocalizedMessage());
+            }
+        }
+        pairLines = lines;
+        return res;
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+
+        Object parse(CachedMapSeatConfig config, List<String> errors) throws IllegalConfigException;
+
+    }
+
+    /**
+     * A problem found in a config.
+     */
+    @Getter
+    public static final class Diagnostic {
+
+        /**
+         * Key of the field with the problem, null if the problem is of the whole config.
+         */
+        private final String field;
+
+        /**
+         * Description of the problem.
+         */
+        private final String message;
+
+        private Diagnostic(final String field, final String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return field == null ? message : field + ": " + message;
+        }
+
+    }
+
+    /**
+     * Last validated state of a field.
+     */
+    private static final class Field {
+
+        private final String key;
+
+        private final Function<CachedMapSeatConfig, Object> raw;
+
+        private final Parser parser;
+
+        private Object lastRaw = UNSEEN;
+
+        private Object value;
+
+        private List<String> errors = List.of();
+
+        private Field(final String key, final Function<CachedMapSeatConfig, Object> raw, final Parser parser) {
+            this.key = key;
+            this.raw = raw;
+            this.parser = parser;
+        }
+
+        /**
+         * Parses the field again if its raw value has changed.
+         *
+         * @return whether the field is parsed again
+         */
+        private boolean update(final CachedMapSeatConfig config) {
+            final Object newRaw;
+            try {
+                newRaw = raw.apply(config);
+            } catch (final IllegalConfigException e) {
+                lastRaw = UNSEEN;
+                value = null;
+                errors = messagesOf(e);
+                return true;
+            }
+            if (lastRaw != UNSEEN && Objects.equals(newRaw, lastRaw)) {
+                return false;
+            }
+            lastRaw = newRaw;
+            val newErrors = new ArrayList<String>();
+            try {
+                value = parser.parse(config, newErrors);
+            } catch (final IllegalConfigException e) {
+                value = null;
+                newErrors.addAll(messagesOf(e));
+            }
+            errors = newErrors;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directories of config files with a {@link WatchService},
+ * and asks the holders to reload when their files are changed by others.
+ * <p>
+ * All the holders share one watch service and one daemon thread, which is started when the first holder is watched.
+ * Events received within {@link #COALESCE_MILLIS} are handled together,
+ * since a single write usually causes more than one event.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class ConfigWatcher {
+
+    /**
+     * Time to wait for more events before handling them.
+     */
+    static final long COALESCE_MILLIS = 50;
+
+    private static final Map<WatchKey, Path> dirs = new HashMap<>();
+
+    private static final Map<Path, Set<SeatConfigHolder>> holders = new HashMap<>();
+
+    private static WatchService watchService;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private ConfigWatcher() {
+    }
+
+    /**
+     * Starts watching the config file of a holder.
+     *
+     * @param holder to watch
+     *
+     * @throws IOException if failed to watch the directory of the config file
+     */
+    static synchronized void watch(final SeatConfigHolder holder) throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread.ofPlatform().daemon().name("Config Watcher").start(ConfigWatcher::run);
+        }
+        val path = pathOf(holder);
+        val dir  = path.getParent();
+        if (!dirs.containsValue(dir)) {
+            dirs.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), dir);
+        }
+        holders.computeIfAbsent(path, k -> new HashSet<>()).add(holder);
+    }
+
+    /**
+     * Stops watching the config file of a holder.
+     *
+     * @param holder to stop watching
+     */
+    static synchronized void unwatch(final SeatConfigHolder holder) {
+        val path = pathOf(holder);
+        val set  = holders.get(path);
+        if (set == null || !set.remove(holder) || !set.isEmpty()) {
+            return;
+        }
+        holders.remove(path);
+        val dir = path.getParent();
+        if (holders.keySet().stream().noneMatch(p -> p.getParent().equals(dir))) {
+            dirs.entrySet().removeIf(e -> {
+                if (e.getValue().equals(dir)) {
+                    e.getKey().cancel();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    private static Path pathOf(final SeatConfigHolder holder) {
+        return holder.getConfigPath().toFile().toPath().toAbsolutePath().normalize();
+    }
+
+    private static void run() {
+        while (true) {
+            try {
+                val changed = new HashMap<Path, Boolean>();
+                var key     = watchService.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                for (val e : holdersOf(changed).entrySet()) {
+                    e.getKey().reloadIfChanged(e.getValue());
+                }
+            } catch (final InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (final Throwable e) {
+                if (LOG.isOpen()) {
+                    LOG.warning("Failed to reload config: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the holders of the changed paths, and whether their files have been created again.
+     */
+    private static synchronized Map<SeatConfigHolder, Boolean> holdersOf(final Map<Path, Boolean> paths) {
+        val res = new HashMap<SeatConfigHolder, Boolean>();
+        for (val e : paths.entrySet()) {
+            for (val holder : holders.getOrDefault(e.getKey(), Set.of())) {
+                res.merge(holder, e.getValue(), Boolean::logicalOr);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Collects the changed paths of a key, and whether each of them has been created.
+     */
+    private static synchronized void collect(final WatchKey key, final Map<Path, Boolean> changed) {
+        val dir = dirs.get(key);
+        for (val event : key.pollEvents()) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == OVERFLOW) {
+                // 事件丢失时检查该目录下所有配置
+                holders.keySet().stream().filter(p -> p.getParent().equals(dir)).forEach(p -> changed.put(p, true));
+            } else if (event.context() instanceof final Path name) {
+                changed.merge(dir.resolve(name), event.kind() == ENTRY_CREATE, Boolean::logicalOr);
+            }
+        }
+        key.reset();
+    }
+
+}
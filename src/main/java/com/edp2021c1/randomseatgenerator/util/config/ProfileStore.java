@@ -0,0 +1,364 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import com.edp2021c1.randomseatgenerator.util.Metadata;
+import com.edp2021c1.randomseatgenerator.util.PathWrapper;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
+
+/**
+ * Store of named configs, called profiles, each saved in its own JSON file in a directory.
+ * <p>
+ * The names, files and hashes of all the profiles are kept in an index file in the same directory,
+ * which is the only file read when the store is opened,
+ * so listing the profiles never reads a profile, and loading a profile reads only its own file.
+ * The snapshot of a profile is read from the binary cache next to its file by the hash in the index,
+ * without even reading the JSON, unless the file has been changed by others since indexed.
+ * <p>
+ * Profiles and the index are written to temporary files first and then moved, so they are never seen half-written.
+ *
+ * @author Calboot
+ * @see SeatConfigCache
+ * @since 1.6.0
+ */
+public final class ProfileStore {
+
+    private static final PathWrapper globalDir = PathWrapper.wrap(Metadata.DATA_DIR.toString(), "config", "profiles");
+
+    private static final String INDEX_FILE_NAME = "index.json";
+
+    /**
+     * Version of the index, 2 since the hashes are of the UTF-8 bytes instead of the chars of the JSON.
+     */
+    private static final int INDEX_VERSION = 2;
+
+    /**
+     * Characters not kept in file names, since the encoding of file names varies across systems.
+     */
+    private static final Pattern ILLEGAL_FILE_NAME_CHARS = Pattern.compile("[^A-Za-z0-9_\\-]");
+
+    private static ProfileStore global;
+
+    private final Path dir;
+
+    private final Path indexPath;
+
+    /**
+     * Entries of the profiles by name, in the order created.
+     */
+    private final Map<String, Entry> index = new LinkedHashMap<>();
+
+    /**
+     * Creates a store in a directory, reading its index.
+     *
+     * @param dir directory of the store, created if absent
+     *
+     * @throws IOException if failed to create the directory or read the index
+     */
+    public ProfileStore(final Path dir) throws IOException {
+        this.dir = PathWrapper.wrap(dir).toFile().toPath().toAbsolutePath();
+        this.indexPath = this.dir.resolve(INDEX_FILE_NAME);
+        Files.createDirectories(this.dir);
+        readIndex();
+    }
+
+    /**
+     * Returns the global store under the data directory, opened when first called.
+     *
+     * @return the global store
+     *
+     * @throws IOException if failed to open the store
+     */
+    public static synchronized ProfileStore global() throws IOException {
+        if (global == null) {
+            global = new ProfileStore(globalDir);
+        }
+        return global;
+    }
+
+    /**
+     * Returns the names of the profiles.
+     *
+     * @return names of the profiles in the order created
+     */
+    public synchronized List<String> names() {
+        return List.copyOf(index.keySet());
+    }
+
+    /**
+     * Returns whether a profile exists.
+     *
+     * @param name of the profile
+     *
+     * @return whether the profile exists
+     */
+    public synchronized boolean contains(final String name) {
+        return index.containsKey(name);
+    }
+
+    /**
+     * Loads a profile.
+     *
+     * @param name of the profile
+     *
+     * @return config of the profile
+     *
+     * @throws IOException if the profile does not exist, or failed to read the profile
+     */
+    public synchronized CachedMapSeatConfig load(final String name) throws IOException {
+        val entry = entryOf(name);
+        val json  = read(entry);
+        try {
+            val obj = JSON.parseObject(json);
+            return new CachedMapSeatConfig(obj == null ? Map.of() : obj);
+        } catch (final JSONException e) {
+            throw new IOException("Failed to parse profile \"%s\"".formatted(name), e);
+        }
+    }
+
+    /**
+     * Returns the snapshot of a profile.
+     * <p>
+     * If the file of the profile is not changed since indexed,
+     * the snapshot is read from the binary cache without reading or parsing the JSON.
+     *
+     * @param name of the profile
+     *
+     * @return snapshot of the profile
+     *
+     * @throws IOException            if the profile does not exist, or failed to read the profile
+     * @throws IllegalConfigException if the profile has an illegal format
+     */
+    public synchronized SeatConfigSnapshot snapshot(final String name) throws IOException, IllegalConfigException {
+        val entry     = entryOf(name);
+        val cachePath = SeatConfigCache.pathOf(PathWrapper.wrap(pathOf(entry)));
+        if (entry.matches(pathOf(entry))) {
+            val cached = SeatConfigCache.read(cachePath, entry.hash);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // 缓存未命中时解析并写入缓存
+        val res = load(name).snapshot();
+        try {
+            SeatConfigCache.write(cachePath, entry.hash, res);
+        } catch (final IOException e) {
+            if (LOG.isOpen()) {
+                LOG.debug("Failed to write profile cache to " + cachePath);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Saves a config as a profile, replacing the profile of the same name.
+     *
+     * @param name   of the profile
+     * @param config to save
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void save(final String name, final CachedMapSeatConfig config) throws IOException {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Profile name cannot be blank");
+        }
+        var entry = index.get(name);
+        if (entry == null) {
+            entry = new Entry(name, newFileName(name));
+        }
+        val json = config.toJsonString().getBytes(StandardCharsets.UTF_8);
+        val path = pathOf(entry);
+        SeatConfigCache.writeAtomically(path, json);
+        entry.update(json, path);
+        index.put(name, entry);
+        writeIndex();
+    }
+
+    /**
+     * Removes a profile.
+     *
+     * @param name of the profile
+     *
+     * @return whether the profile existed
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized boolean remove(final String name) throws IOException {
+        val entry = index.remove(name);
+        if (entry == null) {
+            return false;
+        }
+        writeIndex();
+        val path = pathOf(entry);
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(SeatConfigCache.pathOf(PathWrapper.wrap(path)));
+        return true;
+    }
+
+    private Entry entryOf(final String name) throws IOException {
+        val entry = index.get(name);
+        if (entry == null) {
+            throw new NoSuchFileException("Profile \"%s\" does not exist".formatted(name));
+        }
+        return entry;
+    }
+
+    private Path pathOf(final Entry entry) {
+        return dir.resolve(entry.file);
+    }
+
+    /**
+     * Reads the JSON of a profile, updating its entry if the file has been changed by others.
+     */
+    private String read(final Entry entry) throws IOException {
+        val path = pathOf(entry);
+        val json = Files.readAllBytes(path);
+        if (!entry.matches(path) || entry.hash != SeatConfigCache.hash(ByteBuffer.wrap(json))) {
+            entry.update(json, path);
+            writeIndex();
+        }
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private String newFileName(final String name) {
+        // 名称中的其他字符被替换，加上哈希值以区分
+        val base = "%s-%08x".formatted(ILLEGAL_FILE_NAME_CHARS.matcher(name).replaceAll("_"), name.hashCode());
+        val used = new HashSet<String>();
+        index.values().forEach(e -> used.add(e.file));
+        var res = base + ".json";
+        for (var i = 2; used.contains(res) || Files.exists(dir.resolve(res)); i++) {
+            res = base + "-" + i + ".json";
+        }
+        return res;
+    }
+
+    private void readIndex() throws IOException {
+        if (!Files.isRegularFile(indexPath)) {
+            return;
+        }
+        final JSONObject obj;
+        try {
+            obj = JSON.parseObject(Files.readString(indexPath, StandardCharsets.UTF_8));
+        } catch (final JSONException e) {
+            throw new IOException("Broken profile index " + indexPath, e);
+        }
+        if (obj == null) {
+            return;
+        }
+        val version = obj.getIntValue("version");
+        if (version < 1 || version > INDEX_VERSION) {
+            return;
+        }
+        val profiles = obj.getJSONArray("profiles");
+        if (profiles == null) {
+            return;
+        }
+        for (var i = 0; i < profiles.size(); i++) {
+            val e     = profiles.getJSONObject(i);
+            val entry = new Entry(e.getString("name"), e.getString("file"));
+            entry.hash = e.getLongValue("hash");
+            entry.size = e.getLongValue("size", -1);
+            entry.modified = e.getLongValue("modified", -1);
+            if (version < INDEX_VERSION) {
+                // 旧版本的哈希不可用，视为文件已被修改，读取时重新计算
+                entry.size = -1;
+            }
+            index.put(entry.name, entry);
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        val profiles = new JSONArray(index.size());
+        for (val entry : index.values()) {
+            val e = new JSONObject();
+            e.put("name", entry.name);
+            e.put("file", entry.file);
+            e.put("hash", entry.hash);
+            e.put("size", entry.size);
+            e.put("modified", entry.modified);
+            profiles.add(e);
+        }
+        val obj = new JSONObject();
+        obj.put("version", INDEX_VERSION);
+        obj.put("profiles", profiles);
+        SeatConfigCache.writeAtomically(indexPath, obj.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Entry of a profile in the index.
+     */
+    private static final class Entry {
+
+        private final String name;
+
+        /**
+         * Name of the file of the profile, relative to the directory of the store.
+         */
+        private final String file;
+
+        /**
+         * Hash of the JSON of the profile, used as the key of its binary cache.
+         *
+         * @see SeatConfigCache#hash(ByteBuffer)
+         */
+        private long hash;
+
+        /**
+         * Size and last modified time of the file when indexed, used to tell whether it has been changed by others.
+         */
+        private long size = -1, modified = -1;
+
+        private Entry(final String name, final String file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        private boolean matches(final Path path) {
+            try {
+                return Files.size(path) == size && Files.getLastModifiedTime(path).toMillis() == modified;
+            } catch (final IOException e) {
+                return false;
+            }
+        }
+
+        private void update(final byte[] json, final Path path) throws IOException {
+            hash = SeatConfigCache.hash(ByteBuffer.wrap(json));
+            size = Files.size(path);
+            modified = Files.getLastModifiedTime(path).toMillis();
+        }
+
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.exception.ExcelAnalysisException;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.util.ConverterUtils;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Imports rosters from Excel documents (*.xlsx/*.xls) or CSV files (*.csv).
+ * <p>
+ * A roster is read row by row in EasyExcel's event mode, so the memory used depends on the configs built
+ * and not on the size of the file.
+ * The first row of each sheet is the header, in which the columns below are recognized, case-insensitively:
+ * <ul>
+ *     <li>{@code name}/{@code 姓名}: required, names in the order of height, rows without a name are skipped</li>
+ *     <li>{@code class}/{@code 班级}: class of the person, the name of the sheet (empty for CSV files) is used if absent</li>
+ *     <li>{@code leader}/{@code 组长}: whether the person is a group leader,
+ *     {@code true}, {@code yes}, {@code y}, {@code 1}, {@code 是} and {@code √} mean yes</li>
+ *     <li>{@code separate}/{@code 分开}: names to separate from the person, split by spaces or commas</li>
+ * </ul>
+ * A config is built for each class, with the names, group leaders and separated pairs read,
+ * and the other fields copied from a template.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public final class RosterImporter {
+
+    private static final Set<String> NAME_HEADERS = Set.of("name", "姓名");
+
+    private static final Set<String> CLASS_HEADERS = Set.of("class", "班级");
+
+    private static final Set<String> LEADER_HEADERS = Set.of("leader", "组长");
+
+    private static final Set<String> SEPARATE_HEADERS = Set.of("separate", "分开");
+
+    private static final Set<String> TRUE_VALUES = Set.of("true", "yes", "y", "1", "是", "√");
+
+    private static final Pattern SEPARATE_SPLITTER = Pattern.compile("[\\s,，;；]+");
+
+    private static final Predicate<String> WHITESPACE_PREDICATE = Pattern.compile("\\s").asPredicate();
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private RosterImporter() {
+    }
+
+    /**
+     * Imports a roster, building a config for each class.
+     *
+     * @param file     roster to import
+     * @param template whose fields other than names, group leaders and separated pairs are copied to each config,
+     *                 or null to leave them empty
+     *
+     * @return configs by class, in the order first seen in the roster
+     *
+     * @throws IOException            if failed to read the roster
+     * @throws IllegalConfigException if the roster has no name column or contains an illegal name
+     */
+    public static Map<String, CachedMapSeatConfig> importRoster(final Path file, final CachedMapSeatConfig template)
+            throws IOException, IllegalConfigException {
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("Roster \"%s\" does not exist or is not a file".formatted(file));
+        }
+        val listener = new RosterListener();
+        try {
+            EasyExcel.read(file.toFile(), listener)
+                    .charset(StandardCharsets.UTF_8)
+                    .doReadAll();
+        } catch (final ExcelAnalysisException e) {
+            // 监听器中抛出的异常会被EasyExcel包装
+            if (e.getCause() instanceof final IllegalConfigException ex) {
+                throw ex;
+            }
+            throw new IOException("Failed to import roster from \"%s\"".formatted(file), e);
+        } catch (final IllegalConfigException e) {
+            throw e;
+        } catch (final RuntimeException e) {
+            throw new IOException("Failed to import roster from \"%s\"".formatted(file), e);
+        }
+
+        val res = new LinkedHashMap<String, CachedMapSeatConfig>();
+        listener.classes.forEach((name, roster) -> {
+            val config = template == null ? new CachedMapSeatConfig() : template.cloneThis();
+            config.setNames(roster.names.toString());
+            config.setGroupLeaders(roster.groupLeaders.toString());
+            config.setSeparatedPairs(roster.separatedPairs.toString());
+            res.put(name, config);
+        });
+        return res;
+    }
+
+    private static void append(final StringBuilder builder, final String s, final String separator) {
+        if (!builder.isEmpty()) {
+            builder.append(separator);
+        }
+        builder.append(s);
+    }
+
+    /**
+     * Fields of a config read from the roster of a class, joined in the format of {@link CachedMapSeatConfig}.
+     */
+    private static final class ClassRoster {
+
+        private final StringBuilder names = new StringBuilder();
+
+        private final StringBuilder groupLeaders = new StringBuilder();
+
+        private final StringBuilder separatedPairs = new StringBuilder();
+
+    }
+
+    /**
+     * Reads a roster row by row.
+     */
+    private static final class RosterListener implements ReadListener<Map<Integer, String>> {
+
+        private final Map<String, ClassRoster> classes = new LinkedHashMap<>();
+
+        // 以下字段在每个表头处重置
+
+        private int nameColumn;
+
+        private int classColumn;
+
+        private int leaderColumn;
+
+        private int separateColumn;
+
+        private ClassRoster sheetRoster;
+
+        private static int find(final Map<Integer, String> head, final Set<String> headers) {
+            for (val e : head.entrySet()) {
+                val value = e.getValue();
+                if (value != null && headers.contains(value.strip().toLowerCase(Locale.ROOT))) {
+                    return e.getKey();
+                }
+            }
+            return -1;
+        }
+
+        private static String cell(final Map<Integer, String> row, final int column) {
+            if (column < 0) {
+                return "";
+            }
+            val value = row.get(column);
+            return value == null ? "" : value.strip();
+        }
+
+        @Override
+        public void invokeHead(final Map<Integer, ReadCellData<?>> headMap, final AnalysisContext context) {
+            val head      = ConverterUtils.convertToStringMap(headMap, context);
+            val sheetName = context.readSheetHolder().getSheetName();
+            nameColumn = find(head, NAME_HEADERS);
+            classColumn = find(head, CLASS_HEADERS);
+            leaderColumn = find(head, LEADER_HEADERS);
+            separateColumn = find(head, SEPARATE_HEADERS);
+            if (nameColumn < 0) {
+                throw new IllegalConfigException(sheetName == null
+                        ? "No name column found in the roster"
+                        : "No name column found in sheet \"%s\" of the roster".formatted(sheetName));
+            }
+            sheetRoster = classColumn < 0
+                    ? classes.computeIfAbsent(sheetName == null ? "" : sheetName, k -> new ClassRoster())
+                    : null;
+        }
+
+        @Override
+        public void invoke(final Map<Integer, String> row, final AnalysisContext context) {
+            val name = cell(row, nameColumn);
+            if (name.isEmpty()) {
+                return;
+            }
+            if (WHITESPACE_PREDICATE.test(name)) {
+                throw new IllegalConfigException(
+                        "Name \"%s\" in row %d of the roster cannot contain whitespaces"
+                                .formatted(name, context.readRowHolder().getRowIndex() + 1)
+                );
+            }
+            val roster = sheetRoster != null
+                    ? sheetRoster
+                    : classes.computeIfAbsent(cell(row, classColumn), k -> new ClassRoster());
+
+            append(roster.names, name, " ");
+            if (TRUE_VALUES.contains(cell(row, leaderColumn).toLowerCase(Locale.ROOT))) {
+                append(roster.groupLeaders, name, " ");
+            }
+            for (val other : SEPARATE_SPLITTER.split(cell(row, separateColumn))) {
+                if (!other.isEmpty() && !other.equals(name)) {
+                    append(roster.separatedPairs, name + " " + other, "\n");
+                }
+            }
+        }
+
+        @Override
+        public void doAfterAllAnalysed(final AnalysisContext context) {
+        }
+
+    }
+
+}
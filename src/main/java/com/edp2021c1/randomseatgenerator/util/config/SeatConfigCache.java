@@ -0,0 +1,311 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import com.edp2021c1.randomseatgenerator.core.AdjacencyRule;
+import com.edp2021c1.randomseatgenerator.core.NamePair;
+import com.edp2021c1.randomseatgenerator.util.PathWrapper;
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Binary cache of a {@link SeatConfigSnapshot}, stored next to the config file
+ * and keyed by the hash of the JSON it is parsed from.
+ * <p>
+ * Names are stored once in a table, and the name list, the group leaders and the separated pairs
+ * are stored as IDs in the table.
+ * When the hash matches, the snapshot is read without parsing or checking any value.
+ * The cache is read into heap buffers instead of being memory-mapped,
+ * since a mapped file cannot be replaced on some systems until the mapping is collected.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class SeatConfigCache {
+
+    /**
+     * "RSGC" in ASCII.
+     */
+    private static final int MAGIC = 0x52534743;
+
+    /**
+     * Length of the magic, the version and the hash at the start of the cache.
+     */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * Version of the format, increase it whenever the format or the way configs are parsed changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private SeatConfigCache() {
+    }
+
+    /**
+     * Returns the path of the cache of a config file.
+     *
+     * @param configPath path of the config file
+     *
+     * @return path of the cache
+     */
+    static Path pathOf(final PathWrapper configPath) {
+        // PathWrapper无法直接用于Files中的方法，且其toString()返回的是绝对路径
+        val path = configPath.toFile().toPath().toAbsolutePath();
+        return path.resolveSibling(path.getFileName() + ".cache");
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the remaining bytes of a buffer, without changing its position.
+     * <p>
+     * This is the only hash used as the key of a cache, always of the UTF-8 bytes of the JSON,
+     * so that the same JSON gets the same key whoever writes the cache.
+     *
+     * @param buffer to hash
+     *
+     * @return the hash
+     */
+    static long hash(final ByteBuffer buffer) {
+        var h = 0xCBF29CE484222325L;
+        for (var i = buffer.position(); i < buffer.limit(); i++) {
+            h = (h ^ (buffer.get(i) & 0xFF)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    /**
+     * Reads a snapshot from the cache.
+     *
+     * @param cachePath path of the cache
+     * @param jsonHash  hash of the JSON the snapshot should be parsed from
+     *
+     * @return the snapshot, null if the cache does not exist, is broken, or is of another JSON
+     */
+    static SeatConfigSnapshot read(final Path cachePath, final long jsonHash) {
+        if (!Files.isRegularFile(cachePath)) {
+            return null;
+        }
+        try (val channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            // 先只读取文件头，哈希不符时不读取其余内容
+            val header = readFully(channel, HEADER_LENGTH);
+            if (header == null || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getLong() != jsonHash) {
+                return null;
+            }
+            val buffer = readFully(channel, Math.toIntExact(channel.size() - HEADER_LENGTH));
+            if (buffer == null) {
+                return null;
+            }
+            val rowCount          = buffer.getInt();
+            val columnCount       = buffer.getInt();
+            val randomBetweenRows = buffer.getInt();
+            val lucky             = buffer.get() != 0;
+            val adjacencyRule     = AdjacencyRule.parse(readString(buffer));
+
+            val table = new String[buffer.getInt()];
+            for (var i = 0; i < table.length; i++) {
+                table[i] = readString(buffer);
+            }
+            val disabledLastRowPos = new ArrayList<Integer>();
+            for (var i = buffer.getInt(); i > 0; i--) {
+                disabledLastRowPos.add(buffer.getInt());
+            }
+            val names        = readNames(buffer, table);
+            val groupLeaders = readNames(buffer, table);
+            val pairCount    = buffer.getInt();
+            val pairs        = new ArrayList<NamePair>(pairCount);
+            for (var i = 0; i < pairCount; i++) {
+                pairs.add(new NamePair(table[buffer.getInt()] + " " + table[buffer.getInt()]));
+            }
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+
+            return new SeatConfigSnapshot(
+                    rowCount,
+                    columnCount,
+                    randomBetweenRows,
+                    disabledLastRowPos,
+                    names,
+                    groupLeaders,
+                    pairs,
+                    lucky,
+                    adjacencyRule
+            );
+        } catch (final IOException | RuntimeException e) {
+            // 缓存损坏，重新解析即可
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot to the cache, replacing the old cache atomically if supported.
+     * <p>
+     * Snapshots with a custom adjacency rule are not cached, and the old cache is deleted instead.
+     *
+     * @param cachePath path of the cache
+     * @param jsonHash  hash of the JSON the snapshot is parsed from
+     * @param snapshot  to write
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(final Path cachePath, final long jsonHash, final SeatConfigSnapshot snapshot)
+            throws IOException {
+        val rule = AdjacencyRule.format(snapshot.adjacencyRule());
+        if (rule == null) {
+            Files.deleteIfExists(cachePath);
+            return;
+        }
+
+        val ids   = new HashMap<String, Integer>();
+        val table = new ArrayList<String>();
+        for (val name : snapshot.names()) {
+            intern(name, ids, table);
+        }
+        for (val name : snapshot.groupLeaders()) {
+            intern(name, ids, table);
+        }
+        for (val pair : snapshot.separatedPairs()) {
+            intern(pair.getFirst(), ids, table);
+            intern(pair.getLast(), ids, table);
+        }
+
+        val bytes = new ByteArrayOutputStream(4096);
+        try (val out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(jsonHash);
+            out.writeInt(snapshot.rowCount());
+            out.writeInt(snapshot.columnCount());
+            out.writeInt(snapshot.randomBetweenRows());
+            out.writeByte(snapshot.lucky() ? 1 : 0);
+            writeString(out, rule);
+            out.writeInt(table.size());
+            for (val s : table) {
+                writeString(out, s);
+            }
+            out.writeInt(snapshot.disabledLastRowPos().size());
+            for (val i : snapshot.disabledLastRowPos()) {
+                out.writeInt(i);
+            }
+            writeNames(out, snapshot.names(), ids);
+            writeNames(out, snapshot.groupLeaders(), ids);
+            out.writeInt(snapshot.separatedPairs().size());
+            for (val pair : snapshot.separatedPairs()) {
+                out.writeInt(ids.get(pair.getFirst()));
+                out.writeInt(ids.get(pair.getLast()));
+            }
+        }
+
+        writeAtomically(cachePath, bytes.toByteArray());
+    }
+
+    /**
+     * Writes the bytes to a temporary file and then moves it to the path,
+     * so that a half-written file is never left on the path.
+     * <p>
+     * Each write uses a temporary file of its own,
+     * so that concurrent writers of the same path never mix their content.
+     *
+     * @param path  to write to
+     * @param bytes to write
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeAtomically(final Path path, final byte[] bytes) throws IOException {
+        val target = path.toAbsolutePath();
+        val temp   = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads bytes from the current position of a channel into a heap buffer.
+     *
+     * @return the buffer flipped for reading, null if the channel ends before the length is read
+     */
+    private static ByteBuffer readFully(final FileChannel channel, final int length) throws IOException {
+        val buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void intern(final String name, final HashMap<String, Integer> ids, final List<String> table) {
+        if (ids.putIfAbsent(name, table.size()) == null) {
+            table.add(name);
+        }
+    }
+
+    private static void writeNames(final DataOutputStream out, final List<String> names, final HashMap<String, Integer> ids)
+            throws IOException {
+        out.writeInt(names.size());
+        for (val name : names) {
+            out.writeInt(ids.get(name));
+        }
+    }
+
+    private static List<String> readNames(final ByteBuffer buffer, final String[] table) {
+        val res = new ArrayList<String>();
+        for (var i = buffer.getInt(); i > 0; i--) {
+            res.add(table[buffer.getInt()]);
+        }
+        return res;
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        val bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        val bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
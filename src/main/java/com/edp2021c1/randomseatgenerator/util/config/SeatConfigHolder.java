@@ -18,19 +18,29 @@
 
 package com.edp2021c1.randomseatgenerator.util.config;
 
+import com.alibaba.fastjson2.JSONException;
 import com.edp2021c1.randomseatgenerator.util.Metadata;
 import com.edp2021c1.randomseatgenerator.util.PathWrapper;
 import com.edp2021c1.randomseatgenerator.util.RuntimeUtils;
 import com.edp2021c1.randomseatgenerator.util.exception.ApplicationAlreadyRunningException;
 import com.edp2021c1.randomseatgenerator.util.exception.FileAlreadyLockedException;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
 import lombok.Getter;
 import lombok.val;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.alibaba.fastjson2.JSON.parseObject;
 import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
@@ -44,6 +54,11 @@ import static com.edp2021c1.randomseatgenerator.util.Log.LOG;
  */
 public class SeatConfigHolder {
 
+    /**
+     * Time to wait after a change before writing the config file, during which later changes are written together.
+     */
+    public static final long WRITE_DELAY_MILLIS = 500;
+
     /**
      * Default config handler.
      */
@@ -55,15 +70,8 @@ public class SeatConfigHolder {
         try {
             globalPath.getParent().replaceWithDirectory();
 
-            global = createHolder(globalPath, true);
-            if (global.content.isEmpty()) {
-                val builtInConfigStream = SeatConfigHolder.class.getResourceAsStream("/assets/conf/default.json");
-                if (builtInConfigStream != null) {
-                    global.putAll(parseObject(new String(builtInConfigStream.readAllBytes())));
-                    builtInConfigStream.close();
-                }
-            }
-
+            // 内置配置在发布前载入，初始化期间不安排延迟写入
+            global = createHolder(globalPath, true, true);
         } catch (final FileAlreadyLockedException e) {
             throw new ApplicationAlreadyRunningException();
         } catch (final IOException e) {
@@ -76,10 +84,80 @@ public class SeatConfigHolder {
 
     private final CachedMapSeatConfig content;
 
-    private final FileChannel channel;
+    /**
+     * Bytes of the config file not parsed into {@link #content} yet, null if parsed.
+     * <p>
+     * The config file is only parsed when the content is needed,
+     * so that the snapshot can be read from the cache without parsing the file.
+     */
+    private byte[] unparsed;
+
+    /**
+     * Locked channel of the config file, reopened when the file is replaced by another one.
+     */
+    private FileChannel channel;
+
+    /**
+     * Key of the config file the channel is opened on.
+     *
+     * @see BasicFileAttributes#fileKey()
+     */
+    private Object fileKey;
+
+    /**
+     * Path of the binary cache of the snapshot.
+     */
+    private final Path cachePath;
+
+    /**
+     * Hash of {@link #json}, the same as {@link #fileHash} once written.
+     */
+    private long jsonHash;
+
+    /**
+     * UTF-8 bytes of the JSON of the content, null if not serialized since the content last changed.
+     */
+    private byte[] json;
+
+    /**
+     * Whether the content has changed since the config file was last written.
+     */
+    private boolean dirty;
+
+    /**
+     * Pending write of the config file, null if not scheduled.
+     */
+    private TimerTask writeTask;
+
+    /**
+     * Size of the config file last read or written.
+     */
+    private long fileSize = -1;
+
+    /**
+     * Hash of the bytes of the config file last read or written.
+     */
+    private long fileHash;
+
+    /**
+     * Buffer reused to read the config file, grown when too small.
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(0);
+
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
 
     private boolean closed;
 
+    /**
+     * Version of the content, increased every time the content is changed.
+     */
+    private volatile long version;
+
+    /**
+     * Snapshot of the content, null if not taken since the content last changed.
+     */
+    private SeatConfigSnapshot snapshot;
+
     /**
      * Creates an instance with the given config path.
      *
@@ -90,9 +168,10 @@ public class SeatConfigHolder {
     private SeatConfigHolder(final Path configPath) throws IOException {
         this.content = new CachedMapSeatConfig();
         this.configPath = PathWrapper.wrap(configPath);
+        this.cachePath = SeatConfigCache.pathOf(this.configPath);
         initConfigPath();
 
-        this.channel = this.configPath.openFileChannel(StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel = openChannel();
         initChannel();
     }
 
@@ -116,10 +195,30 @@ public class SeatConfigHolder {
      * @throws IOException if failed to init config path, or does not have enough permission of the path
      */
     public static SeatConfigHolder createHolder(final Path configPath, final boolean closeOnExit) throws IOException {
+        return createHolder(configPath, closeOnExit, false);
+    }
+
+    /**
+     * Creates an instance, loads the built-in config into it if asked and the config file is empty,
+     * and writes the config file at once if it is not the same as the loaded content.
+     * <p>
+     * The file is written on the calling thread instead of by {@link #putAll(Map)},
+     * so that no write is scheduled on the timer thread before the holder is fully created,
+     * which could otherwise wait for the class initialization running on this thread.
+     */
+    private static SeatConfigHolder createHolder(final Path configPath, final boolean closeOnExit, final boolean builtIn)
+            throws IOException {
         val res = new SeatConfigHolder(configPath);
-        if (closeOnExit) {
-            RuntimeUtils.addExitHook(res::close);
+        if (builtIn && res.content().isEmpty()) {
+            try (val builtInConfigStream = SeatConfigHolder.class.getResourceAsStream("/assets/conf/default.json")) {
+                if (builtInConfigStream != null) {
+                    res.load(parseObject(new String(builtInConfigStream.readAllBytes(), StandardCharsets.UTF_8)));
+                }
+            }
         }
+        res.flush();
+        // 退出前写入尚未保存的更改
+        RuntimeUtils.addExitHook(closeOnExit ? res::close : res::flushQuietly);
         return res;
     }
 
@@ -130,7 +229,9 @@ public class SeatConfigHolder {
         if (closed) {
             return;
         }
+        ConfigWatcher.unwatch(this);
         try {
+            flush();
             channel.close();
         } catch (final IOException e) {
             throw new RuntimeException(e);
@@ -151,16 +252,115 @@ public class SeatConfigHolder {
         }
     }
 
-    private void initChannel() throws IOException {
-        if (channel.tryLock() == null) {
+    /**
+     * Opens and locks the config file, and records its file key.
+     */
+    private FileChannel openChannel() throws IOException {
+        val res = configPath.openFileChannel(StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (res.tryLock() == null) {
+            res.close();
             throw new FileAlreadyLockedException(configPath);
         }
-        val obj = parseObject(configPath.readString());
-        putAll(
-                content.putAllAndReturn(
-                        obj == null ? Map.of() : obj
-                )
-        ); // To load and truncate the content
+        fileKey = fileKey();
+        return res;
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(configPath.toFile().toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Reopens the config file if it has been replaced by another file, for example by writing a temporary file
+     * and renaming it to the config path, which leaves the open channel on the old file.
+     *
+     * @param created whether the file has been created again, used when file keys are not supported
+     *
+     * @return whether the config file is reopened
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean reopenIfReplaced(final boolean created) throws IOException {
+        if (!Files.isRegularFile(configPath.toFile().toPath())) {
+            // 正在被替换，等待新文件创建
+            return false;
+        }
+        val key = fileKey();
+        if (key != null ? key.equals(fileKey) : !created) {
+            return false;
+        }
+        val old = channel;
+        channel = openChannel();
+        old.close();
+        // 新文件需要重新读取
+        fileSize = -1;
+        if (LOG.isOpen()) {
+            LOG.debug("Config file at " + configPath + " replaced, reopened");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the config file, and looks up the snapshot in the cache by the hash of the bytes before parsing them.
+     */
+    private void initChannel() throws IOException {
+        val buffer = readFile();
+        fileSize = buffer.remaining();
+        fileHash = SeatConfigCache.hash(buffer);
+        val raw = new byte[buffer.remaining()];
+        buffer.get(raw);
+        snapshot = SeatConfigCache.read(cachePath, fileHash);
+        if (snapshot != null) {
+            // 缓存命中，推迟到需要内容时再解析
+            unparsed = raw;
+            return;
+        }
+        val obj = parseObject(new String(raw, StandardCharsets.UTF_8));
+        load(obj == null ? Map.of() : obj);
+        // 文件与规范化后的内容一致时无需重写
+        dirty = !Arrays.equals(json(), raw);
+    }
+
+    /**
+     * Reads the whole config file through the channel into {@link #readBuffer}.
+     *
+     * @return the buffer, ready to be read
+     */
+    private ByteBuffer readFile() throws IOException {
+        val size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Config file too large: " + configPath);
+        }
+        if (readBuffer.capacity() < size) {
+            readBuffer = ByteBuffer.allocate((int) size);
+        }
+        val buffer = readBuffer.clear().limit((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // 读满为止
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Returns the content, parsing the config file first if not parsed yet.
+     */
+    private CachedMapSeatConfig content() {
+        if (unparsed != null) {
+            val obj = parseObject(new String(unparsed, StandardCharsets.UTF_8));
+            unparsed = null;
+            content.putAll(obj == null ? Map.of() : obj);
+        }
+        return content;
+    }
+
+    /**
+     * Puts a map without scheduling a write, used before the holder is fully created.
+     */
+    private void load(final Map<? extends String, ?> map) {
+        content().putAll(map);
+        snapshot = null;
+        json = null;
+        version++;
+        dirty = true;
     }
 
     private void checkState() {
@@ -171,6 +371,8 @@ public class SeatConfigHolder {
 
     /**
      * Puts a map.
+     * <p>
+     * The config file is not written at once, see {@link #flush()}.
      *
      * @param map to put
      *
@@ -179,7 +381,173 @@ public class SeatConfigHolder {
      */
     public synchronized void putAll(final Map<? extends String, ?> map) throws IOException {
         checkState();
-        configPath.writeString(content.putAllAndReturn(map).toJsonString());
+        load(map);
+        if (writeTask == null) {
+            writeTask = RuntimeUtils.runLater(this::flushQuietly, WRITE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Writes the config file now if the content has changed since last written.
+     * <p>
+     * Changes made by {@link #putAll(Map)} are written after {@link #WRITE_DELAY_MILLIS} together,
+     * and are also written on exit, so this is only needed if the file must be up to date at once.
+     * The file is overwritten with a single positional write through the locked channel
+     * and then truncated, so that it is never seen empty.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void flush() throws IOException {
+        if (writeTask != null) {
+            writeTask.cancel();
+            writeTask = null;
+        }
+        if (!dirty || !channel.isOpen()) {
+            return;
+        }
+        // 不写入已被替换掉的旧文件
+        reopenIfReplaced(false);
+        val bytes  = json();
+        val buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.truncate(bytes.length);
+        channel.force(false);
+        fileSize = bytes.length;
+        fileHash = jsonHash;
+        dirty = false;
+        if (LOG.isOpen()) {
+            LOG.debug("Config written to " + configPath);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (final IOException e) {
+            if (LOG.isOpen()) {
+                LOG.warning("Failed to write config to %s: %s".formatted(configPath, e));
+            }
+        }
+    }
+
+    /**
+     * Returns the JSON of the content in UTF-8, serialized only once after each change.
+     */
+    private byte[] json() {
+        if (json == null) {
+            json = content().toJsonString().getBytes(StandardCharsets.UTF_8);
+            jsonHash = SeatConfigCache.hash(ByteBuffer.wrap(json));
+        }
+        return json;
+    }
+
+    /**
+     * Adds a listener called when the config is reloaded after the config file is changed by others,
+     * and starts watching the config file if not yet.
+     * <p>
+     * Listeners are called on the watching thread, and should switch to the FX thread themselves if needed.
+     * Changes made through {@link #putAll(Map)} do not call the listeners.
+     *
+     * @param listener to add
+     *
+     * @throws IOException           if failed to watch the config file
+     * @throws IllegalStateException if is closed
+     */
+    public synchronized void addReloadListener(final Runnable listener) throws IOException {
+        checkState();
+        if (reloadListeners.isEmpty()) {
+            ConfigWatcher.watch(this);
+        }
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by {@link #addReloadListener(Runnable)},
+     * and stops watching the config file if no listener is left.
+     *
+     * @param listener to remove
+     */
+    public synchronized void removeReloadListener(final Runnable listener) {
+        if (reloadListeners.remove(listener) && reloadListeners.isEmpty()) {
+            ConfigWatcher.unwatch(this);
+        }
+    }
+
+    /**
+     * Reads the config file again through the locked channel, and replaces the config if it has changed.
+     * <p>
+     * The channel is reopened first if the config file has been replaced by another file.
+     * <p>
+     * Events caused by writes of this holder, or by writes that leave the file the same,
+     * are skipped by comparing the size and the hash of the bytes, without decoding or parsing them.
+     * The config is only replaced, and its snapshot only dropped, if the parsed content is different.
+     * Files that cannot be parsed, usually because they are being written, are ignored until changed again.
+     *
+     * @param created whether the config file has been created again since last checked
+     *
+     * @return whether the config is replaced
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    boolean reloadIfChanged(final boolean created) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            reopenIfReplaced(created);
+            val buffer = readFile();
+            val size   = buffer.remaining();
+            val hash   = SeatConfigCache.hash(buffer);
+            if (size == fileSize && hash == fileHash) {
+                return false;
+            }
+
+            val raw = new byte[size];
+            buffer.get(raw);
+            final Map<String, Object> obj;
+            try {
+                obj = parseObject(new String(raw, StandardCharsets.UTF_8));
+            } catch (final JSONException e) {
+                if (LOG.isOpen()) {
+                    LOG.warning("Ignored unparsable config at " + configPath);
+                }
+                return false;
+            }
+            fileSize = size;
+            fileHash = hash;
+            val newContent = new CachedMapSeatConfig(obj == null ? Map.of() : obj);
+            if (newContent.equals(content())) {
+                return false;
+            }
+            content.clear();
+            content.putAll(newContent);
+            json = raw;
+            jsonHash = hash;
+            snapshot = null;
+            version++;
+            // 以文件中的配置为准，放弃尚未写入的更改
+            dirty = false;
+        }
+        if (LOG.isOpen()) {
+            LOG.info("Config reloaded from " + configPath);
+        }
+        // 在锁外通知，避免监听器中读取配置时死锁
+        for (val listener : reloadListeners) {
+            listener.run();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the version of the config, which is increased every time the config is changed,
+     * so that a copy of the config can tell whether it is outdated without comparing the content.
+     *
+     * @return the version of the config
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -189,9 +557,46 @@ public class SeatConfigHolder {
      *
      * @throws IllegalStateException if is closed
      */
-    public CachedMapSeatConfig getClone() {
+    public synchronized CachedMapSeatConfig getClone() {
+        checkState();
+        return content().cloneThis().refresh();
+    }
+
+    /**
+     * Returns the snapshot of the config, which is only parsed again after the config is changed.
+     * <p>
+     * The snapshot is read from the binary cache next to the config file if it is of the same bytes,
+     * otherwise it is parsed and written to the cache.
+     * The cache is keyed by the hash of the bytes of the config file, or of the bytes to be written if changed,
+     * so that it is looked up on startup before the file is parsed.
+     *
+     * @return the snapshot of the config
+     *
+     * @throws IllegalStateException  if is closed
+     * @throws IllegalConfigException if the config has an illegal format
+     */
+    public synchronized SeatConfigSnapshot getSnapshot() throws IllegalConfigException {
         checkState();
-        return content.cloneThis().refresh();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        if (dirty) {
+            json();
+        }
+        // 未修改时文件即为当前内容，无需序列化
+        val key = dirty ? jsonHash : fileHash;
+        snapshot = SeatConfigCache.read(cachePath, key);
+        if (snapshot == null) {
+            snapshot = content().snapshot();
+            try {
+                SeatConfigCache.write(cachePath, key, snapshot);
+            } catch (final IOException e) {
+                if (LOG.isOpen()) {
+                    LOG.debug("Failed to write config cache to " + cachePath);
+                }
+            }
+        }
+        return snapshot;
     }
 
 }
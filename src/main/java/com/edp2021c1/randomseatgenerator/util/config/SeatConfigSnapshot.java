@@ -0,0 +1,304 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import com.edp2021c1.randomseatgenerator.core.AdjacencyRule;
+import com.edp2021c1.randomseatgenerator.core.CompiledSeatConfig;
+import com.edp2021c1.randomseatgenerator.core.NamePair;
+import com.edp2021c1.randomseatgenerator.core.SeatConfig;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+
+import java.util.List;
+
+/**
+ * Immutable and already checked {@link SeatConfig}, parsed only once.
+ * <p>
+ * A snapshot can be shared between the generators, the UI and the console without parsing the config again,
+ * since {@link #check()} does nothing and every value is returned as it is.
+ * It also carries a hash of its content computed when created,
+ * so snapshots with different content are told apart without comparing the lists.
+ *
+ * @author Calboot
+ * @see CachedMapSeatConfig#snapshot()
+ * @since 1.6.0
+ */
+public final class SeatConfigSnapshot implements SeatConfig {
+
+    private final int rowCount;
+
+    private final int columnCount;
+
+    private final int randomBetweenRows;
+
+    private final List<Integer> disabledLastRowPos;
+
+    private final List<String> names;
+
+    private final List<String> groupLeaders;
+
+    private final List<NamePair> separatedPairs;
+
+    private final boolean lucky;
+
+    private final AdjacencyRule adjacencyRule;
+
+    private final long contentHash;
+
+    /**
+     * Compiled form of this snapshot, null if not compiled yet.
+     */
+    private volatile CompiledSeatConfig compiled;
+
+    SeatConfigSnapshot(
+            final int rowCount,
+            final int columnCount,
+            final int randomBetweenRows,
+            final List<Integer> disabledLastRowPos,
+            final List<String> names,
+            final List<String> groupLeaders,
+            final List<NamePair> separatedPairs,
+            final boolean lucky,
+            final AdjacencyRule adjacencyRule
+    ) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.randomBetweenRows = randomBetweenRows;
+        this.disabledLastRowPos = List.copyOf(disabledLastRowPos);
+        this.names = List.copyOf(names);
+        this.groupLeaders = List.copyOf(groupLeaders);
+        this.separatedPairs = List.copyOf(separatedPairs);
+        this.lucky = lucky;
+        this.adjacencyRule = adjacencyRule;
+        contentHash = hashContent();
+    }
+
+    /**
+     * Returns a snapshot of a config.
+     *
+     * @param config to take the snapshot of
+     *
+     * @return the config itself if it is already a snapshot, otherwise a new snapshot
+     *
+     * @throws IllegalConfigException if config is null or is illegal
+     */
+    public static SeatConfigSnapshot of(final SeatConfig config) throws IllegalConfigException {
+        return switch (config) {
+            case null -> throw new IllegalConfigException("Config cannot be null");
+            case final SeatConfigSnapshot snapshot -> snapshot;
+            case final CachedMapSeatConfig cachedMapSeatConfig -> cachedMapSeatConfig.snapshot();
+            default -> {
+                config.check();
+                yield new SeatConfigSnapshot(
+                        config.rowCount(),
+                        config.columnCount(),
+                        config.randomBetweenRows(),
+                        config.disabledLastRowPos(),
+                        config.names(),
+                        config.groupLeaders(),
+                        config.separatedPairs(),
+                        config.lucky(),
+                        config.adjacencyRule()
+                );
+            }
+        };
+    }
+
+    private static long mix(final long hash, final long value) {
+        val h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long hash, final String value) {
+        hash = mix(hash, value.length());
+        for (var i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the built-in rules by what they are, so that the hash does not change between runs.
+     */
+    private static long hashRule(final AdjacencyRule rule) {
+        if (rule == AdjacencyRule.DEFAULT) {
+            return 0;
+        }
+        if (rule == AdjacencyRule.FOUR_NEIGHBOUR) {
+            return 1;
+        }
+        if (rule == AdjacencyRule.SAME_ROW) {
+            return 2;
+        }
+        if (rule instanceof AdjacencyRule.Radius) {
+            return 3 + ((long) rule.hashCode() << 32);
+        }
+        return rule.hashCode();
+    }
+
+    private static boolean pairsEqual(final List<NamePair> a, final List<NamePair> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (var i = 0; i < a.size(); i++) {
+            if (!a.get(i).getFirst().equals(b.get(i).getFirst()) || !a.get(i).getLast().equals(b.get(i).getLast())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long hashContent() {
+        var h = mix(0, rowCount);
+        h = mix(h, columnCount);
+        h = mix(h, randomBetweenRows);
+        h = mix(h, lucky ? 1 : 0);
+        h = mix(h, hashRule(adjacencyRule));
+        // 每个列表前加上长度，避免内容相连后相同
+        h = mix(h, disabledLastRowPos.size());
+        for (val i : disabledLastRowPos) {
+            h = mix(h, i);
+        }
+        h = mix(h, names.size());
+        for (val s : names) {
+            h = mix(h, s);
+        }
+        h = mix(h, groupLeaders.size());
+        for (val s : groupLeaders) {
+            h = mix(h, s);
+        }
+        h = mix(h, separatedPairs.size());
+        for (val pair : separatedPairs) {
+            h = mix(mix(h, pair.getFirst()), pair.getLast());
+        }
+        return h;
+    }
+
+    /**
+     * Returns the hash of the content, computed when the snapshot is created.
+     *
+     * @return the 64-bit content hash
+     */
+    public long contentHash() {
+        return contentHash;
+    }
+
+    @Override
+    public int randomBetweenRows() {
+        return randomBetweenRows;
+    }
+
+    @Override
+    public boolean lucky() {
+        return lucky;
+    }
+
+    /**
+     * Does nothing, since a snapshot is checked when created.
+     */
+    @Override
+    public void check() {
+    }
+
+    /**
+     * Compiles this snapshot only once, so that the compiled config and its feasibility are reused
+     * whenever the same snapshot is generated with.
+     *
+     * @return the compiled config
+     *
+     * @throws IllegalConfigException if no seat table with the given row and column count can hold the people
+     */
+    @Override
+    public CompiledSeatConfig compile() throws IllegalConfigException {
+        var res = compiled;
+        if (res == null) {
+            res = SeatConfig.super.compile();
+            compiled = res;
+        }
+        return res;
+    }
+
+    @Override
+    public int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public List<Integer> disabledLastRowPos() {
+        return disabledLastRowPos;
+    }
+
+    @Override
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public List<String> groupLeaders() {
+        return groupLeaders;
+    }
+
+    @Override
+    public List<NamePair> separatedPairs() {
+        return separatedPairs;
+    }
+
+    @Override
+    public AdjacencyRule adjacencyRule() {
+        return adjacencyRule;
+    }
+
+    /**
+     * Compares the content hashes first, and the content only if the hashes are the same.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof final SeatConfigSnapshot other) || other.contentHash != contentHash) {
+            return false;
+        }
+        return other.rowCount == rowCount
+                && other.columnCount == columnCount
+                && other.randomBetweenRows == randomBetweenRows
+                && other.lucky == lucky
+                && other.adjacencyRule.equals(adjacencyRule)
+                && other.disabledLastRowPos.equals(disabledLastRowPos)
+                && other.names.equals(names)
+                && other.groupLeaders.equals(groupLeaders)
+                && pairsEqual(other.separatedPairs, separatedPairs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(contentHash);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatConfigSnapshot[%dx%d, %d people, hash=%016x]".formatted(rowCount, columnCount, names.size(), contentHash);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.exception;
+
+import com.edp2021c1.randomseatgenerator.util.useroutput.Notice;
+import lombok.Getter;
+
+import java.io.Serial;
+
+/**
+ * Thrown if generating a seat table is cancelled or timed out before a valid seat table is found.
+ * <p>
+ * It is not an {@link IllegalConfigException}, since the config may be valid
+ * but too hard to satisfy in time, or satisfied with another seed.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+public class GenerationCancelledException extends RuntimeException implements Notice {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Count of attempts made before cancelled.
+     */
+    @Getter
+    private final long attempts;
+
+    /**
+     * Default constructor.
+     *
+     * @param attempts count of attempts made before cancelled
+     */
+    public GenerationCancelledException(final long attempts) {
+        this(attempts, null);
+    }
+
+    /**
+     * Constructs an instance with the seed used.
+     *
+     * @param attempts count of attempts made before cancelled
+     * @param seed     used to generate, not shown if null
+     */
+    public GenerationCancelledException(final long attempts, final String seed) {
+        super("Seat table generating cancelled after %d attempt(s), please check your config or use another seed".formatted(attempts)
+                + (seed == null ? "" : System.lineSeparator() + "Seed: " + seed));
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String title() {
+        return "Generation cancelled";
+    }
+
+    @Override
+    public String message() {
+        return getLocalizedMessage();
+    }
+
+}
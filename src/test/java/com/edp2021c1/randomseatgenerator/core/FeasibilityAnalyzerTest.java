@@ -0,0 +1,66 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.exception.GenerationCancelledException;
+import com.edp2021c1.randomseatgenerator.util.exception.IllegalConfigException;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link FeasibilityAnalyzer}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+class FeasibilityAnalyzerTest {
+
+    @Test
+    void satisfiableConfigIsNeverInfeasible() {
+        val rd        = new Random(7);
+        var generated = 0;
+        for (var i = 0; i < 300; i++) {
+            val config = TestConfigs.random(rd);
+            for (val generator : new SeatTableGenerator[]{SeatTableGenerator.defaultGenerator, SeatTableGenerator.samplingGenerator}) {
+                try {
+                    generator.generate(config, "seed" + i, CancellationToken.withTimeout(200, TimeUnit.MILLISECONDS));
+                } catch (final IllegalConfigException | GenerationCancelledException e) {
+                    continue;
+                }
+                generated++;
+                assertFalse(FeasibilityAnalyzer.analyze(config).isInfeasible(), () -> "generated by " + generator + ": " + config);
+            }
+        }
+        // 保证确实检查了足够多的配置
+        assertTrue(generated > 100, "only " + generated + " configs generated");
+    }
+
+    @Test
+    void unseparablePairIsInfeasible() {
+        // 只有两个相邻的座位，a、b无法分开
+        val config = TestConfigs.config(1, 2, 1, "a b", "a b", "a b", false);
+        assertTrue(FeasibilityAnalyzer.analyze(config).isInfeasible());
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of {@link SeatTableExporter}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+class SeatTableExporterTest {
+
+    @Test
+    void illegalCharsInSheetNameAreReplaced() {
+        val used = new HashSet<String>();
+        assertEquals("a_b_c_d_e_f_g_", SeatTableExporter.uniqueSheetName("a[b]c:d*e?f/g\\", used));
+        assertEquals("Sheet", SeatTableExporter.uniqueSheetName("  ", used));
+        assertEquals("Sheet(2)", SeatTableExporter.uniqueSheetName(null, used));
+    }
+
+    @Test
+    void longSheetNameIsCut() {
+        val used = new HashSet<String>();
+        val name = "x".repeat(40);
+        assertEquals("x".repeat(31), SeatTableExporter.uniqueSheetName(name, used));
+        assertEquals("x".repeat(28) + "(2)", SeatTableExporter.uniqueSheetName(name, used));
+    }
+
+    @Test
+    void duplicateSheetNameIgnoresCase() {
+        val used = new HashSet<String>();
+        assertEquals("Seat", SeatTableExporter.uniqueSheetName("Seat", used));
+        assertEquals("SEAT(2)", SeatTableExporter.uniqueSheetName("SEAT", used));
+        assertEquals("seat(3)", SeatTableExporter.uniqueSheetName("seat", used));
+        assertEquals("seat(2)(2)", SeatTableExporter.uniqueSheetName("seat(2)", used));
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the built-in {@link SeatTableGenerator}s.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+class SeatTableGeneratorTest {
+
+    private static final List<SeatTableGenerator> GENERATORS = List.of(
+            SeatTableGenerator.defaultGenerator,
+            SeatTableGenerator.samplingGenerator,
+            SeatTableGenerator.parallelGenerator
+    );
+
+    private static final SeatTableGeneratorAndChecker CHECKER = (SeatTableGeneratorAndChecker) SeatTableGenerator.samplingGenerator;
+
+    @Test
+    void sameSeedGivesSameTable() {
+        val config = TestConfigs.config(
+                4, 5, 2,
+                "a b c d e f g h i j k l m n o p q r s t",
+                "a b c d e f g",
+                "a b\nc d\ne f\nh i\nk l",
+                true
+        );
+        for (val generator : GENERATORS) {
+            for (var i = 0; i < 20; i++) {
+                val seed = "seed" + i;
+                val a    = generator.generate(config, seed);
+                val b    = generator.generate(config, seed);
+                assertEquals(a.getTable(), b.getTable(), generator + " with seed " + seed);
+                assertEquals(a.getLuckyPerson(), b.getLuckyPerson(), generator + " with seed " + seed);
+                assertTrue(CHECKER.check(TestConfigs.plainNames(a), config), generator + " with seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void generateAllMatchesGenerate() {
+        val config = TestConfigs.config(3, 3, 3, "a b c d e f g h i", "a b c d", "a e\nb f", false);
+        val seeds  = List.of("0", "1", "2", "3", "4", "5");
+        for (val generator : GENERATORS) {
+            val tables = generator.generateAll(config, seeds).toList();
+            assertEquals(seeds.size(), tables.size());
+            for (var i = 0; i < seeds.size(); i++) {
+                assertEquals(generator.generate(config, seeds.get(i)).getTable(), tables.get(i).getTable());
+            }
+        }
+    }
+
+    @Test
+    void samplingAndDefaultHaveSameDistribution() {
+        // 2行3列，每列需有组长且d、e不能相邻，合法的座位表数量较少，便于统计
+        val config = TestConfigs.config(2, 3, 2, "a b c d e f", "a b c", "d e", false);
+        val count  = 6000;
+
+        val sampling = frequencies(SeatTableGenerator.samplingGenerator, config, count);
+        val def      = frequencies(SeatTableGenerator.defaultGenerator, config, count);
+        assertEquals(sampling.keySet(), def.keySet());
+
+        // 两者都应均匀分布于所有合法的座位表
+        val expected = (double) count / sampling.size();
+        var distance = 0.0;
+        for (val table : sampling.keySet()) {
+            distance += Math.abs(sampling.get(table) - def.get(table));
+            assertEquals(expected, sampling.get(table), expected * 0.5, "sampling " + table);
+            assertEquals(expected, def.get(table), expected * 0.5, "default " + table);
+        }
+        assertTrue(distance / 2 / count < 0.1, "total variation distance " + distance / 2 / count);
+    }
+
+    private static Map<List<String>, Integer> frequencies(final SeatTableGenerator generator, final SeatConfig config, final int count) {
+        val res = new HashMap<List<String>, Integer>();
+        for (var i = 0; i < count; i++) {
+            res.merge(List.copyOf(generator.generate(config, Integer.toString(i)).getTable()), 1, Integer::sum);
+        }
+        return res;
+    }
+
+}
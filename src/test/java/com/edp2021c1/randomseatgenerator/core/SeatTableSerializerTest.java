@@ -0,0 +1,95 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link SeatTableSerializer}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+class SeatTableSerializerTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<SeatTable> seatTables() {
+        val config = TestConfigs.config(3, 4, 1, "a b c d e f g h i j k 张三", "a b c d 张三", "a b\ne f", true);
+        return IntStream.range(0, 8).mapToObj(i -> SeatTable.generate(config, "seed" + i)).toList();
+    }
+
+    private static void assertSame(final List<SeatTable> expected, final List<SeatTable> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (var i = 0; i < expected.size(); i++) {
+            val e = expected.get(i);
+            val a = actual.get(i);
+            assertEquals(e.getTable(), a.getTable());
+            assertEquals(e.getSeed(), a.getSeed());
+            assertEquals(e.getLuckyPerson(), a.getLuckyPerson());
+            assertEquals(e.getConfig().columnCount(), a.getConfig().columnCount());
+            assertEquals(e.getConfig().lucky(), a.getConfig().lucky());
+        }
+    }
+
+    @Test
+    void jsonLinesRoundTrip() throws IOException {
+        val tables = seatTables();
+        // 确保测试覆盖组长与幸运儿
+        assertTrue(tables.stream().allMatch(t -> t.getLuckyPerson() != null));
+        assertTrue(tables.getFirst().getTable().stream().anyMatch(SeatTable.groupLeaderRegexPredicate));
+
+        val path = dir.resolve("tables" + SeatTableSerializer.JSON_LINES_SUFFIX);
+        assertEquals(tables.size(), SeatTableSerializer.writeJsonLines(tables.iterator(), path));
+        assertSame(tables, SeatTableSerializer.readJsonLines(path));
+    }
+
+    @Test
+    void binaryRoundTrip() throws IOException {
+        val tables = seatTables();
+        val out    = new ByteArrayOutputStream();
+        SeatTableSerializer.writeBinary(tables, out);
+        assertSame(tables, SeatTableSerializer.readBinary(ByteBuffer.wrap(out.toByteArray())));
+
+        val path = dir.resolve("tables" + SeatTableSerializer.BINARY_SUFFIX);
+        SeatTableSerializer.writeBinary(tables, path);
+        assertSame(tables, SeatTableSerializer.readBinary(path));
+    }
+
+    @Test
+    void truncatedBinaryIsRejected() throws IOException {
+        val out = new ByteArrayOutputStream();
+        SeatTableSerializer.writeBinary(seatTables(), out);
+        val bytes = out.toByteArray();
+        assertThrows(IOException.class, () -> SeatTableSerializer.readBinary(ByteBuffer.wrap(bytes, 0, bytes.length - 3)));
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.core;
+
+import com.edp2021c1.randomseatgenerator.util.config.CachedMapSeatConfig;
+import lombok.val;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Configs shared by the tests.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+final class TestConfigs {
+
+    /**
+     * Don't let anyone else instantiate this class.
+     */
+    private TestConfigs() {
+    }
+
+    /**
+     * Returns a config with the given values and no disabled seat in the last row.
+     *
+     * @param rowCount          count of rows
+     * @param columnCount       count of columns
+     * @param randomBetweenRows count of rows shuffled together
+     * @param names             names separated by spaces
+     * @param groupLeaders      group leaders separated by spaces
+     * @param separatedPairs    separated pairs, one in each line
+     * @param lucky             whether to choose a lucky person
+     *
+     * @return the config, refreshed
+     */
+    static CachedMapSeatConfig config(
+            final int rowCount,
+            final int columnCount,
+            final int randomBetweenRows,
+            final String names,
+            final String groupLeaders,
+            final String separatedPairs,
+            final boolean lucky
+    ) {
+        val config = new CachedMapSeatConfig();
+        config.setRowCount(rowCount);
+        config.setColumnCount(columnCount);
+        config.setRandomBetweenRows(randomBetweenRows);
+        config.setDisabledLastRowPos("");
+        config.setNames(names);
+        config.setGroupLeaders(groupLeaders);
+        config.setSeparatedPairs(separatedPairs);
+        config.setLucky(lucky);
+        return config.refresh();
+    }
+
+    /**
+     * Returns a small random config, which may or may not be satisfiable.
+     *
+     * @param rd used to choose the values
+     *
+     * @return the config, refreshed
+     */
+    static CachedMapSeatConfig random(final Random rd) {
+        val rowCount    = 1 + rd.nextInt(5);
+        val columnCount = 1 + rd.nextInt(5);
+        val peopleNum   = Math.max(columnCount, rowCount * columnCount - rd.nextInt(columnCount + 1));
+        val names       = IntStream.range(0, peopleNum).mapToObj(i -> "p" + i).toList();
+
+        val pairs = new StringBuilder();
+        for (var i = rd.nextInt(peopleNum + 1); i > 0; i--) {
+            val a = rd.nextInt(peopleNum);
+            val b = rd.nextInt(peopleNum);
+            if (a != b) {
+                pairs.append(names.get(a)).append(' ').append(names.get(b)).append('\n');
+            }
+        }
+        return config(
+                rowCount,
+                columnCount,
+                1 + rd.nextInt(rowCount),
+                String.join(" ", names),
+                String.join(" ", names.subList(0, Math.min(peopleNum, columnCount + rd.nextInt(3)))),
+                pairs.toString(),
+                rd.nextBoolean()
+        );
+    }
+
+    /**
+     * Returns the names in a seat table, with the marks of the group leaders removed.
+     *
+     * @param seatTable to read
+     *
+     * @return the names, in the order of the seats
+     */
+    static List<String> plainNames(final SeatTable seatTable) {
+        return seatTable.getTable().stream()
+                .map(s -> SeatTable.groupLeaderRegexPredicate.test(s) ? s.substring(1, s.length() - 1) : s)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * RandomSeatGenerator
+ * Copyright (C) 2023  EDP2021C1
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.edp2021c1.randomseatgenerator.util.config;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link SeatConfigCache}.
+ *
+ * @author Calboot
+ * @since 1.6.0
+ */
+class SeatConfigCacheTest {
+
+    private static final long JSON_HASH = SeatConfigCache.hash(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)));
+
+    @TempDir
+    Path dir;
+
+    private static SeatConfigSnapshot snapshot() {
+        val config = new CachedMapSeatConfig();
+        config.setRowCount(3);
+        config.setColumnCount(4);
+        config.setRandomBetweenRows(2);
+        config.setDisabledLastRowPos("1 4");
+        config.setNames("a b c d e f g h i 张三");
+        config.setGroupLeaders("a b c 张三");
+        config.setSeparatedPairs("a b\n张三 d");
+        config.setLucky(true);
+        return config.snapshot();
+    }
+
+    @Test
+    void writeThenRead() throws IOException {
+        val path     = dir.resolve("seat_config.json.cache");
+        val snapshot = snapshot();
+        SeatConfigCache.write(path, JSON_HASH, snapshot);
+
+        val read = SeatConfigCache.read(path, JSON_HASH);
+        assertNotNull(read);
+        assertEquals(snapshot, read);
+        assertEquals(snapshot.names(), read.names());
+        assertEquals(snapshot.groupLeaders(), read.groupLeaders());
+        assertEquals(snapshot.disabledLastRowPos(), read.disabledLastRowPos());
+        assertEquals(snapshot.separatedPairs().size(), read.separatedPairs().size());
+        assertEquals(snapshot.lucky(), read.lucky());
+        // 只留下缓存本身，不留下临时文件
+        try (val files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void cacheOfAnotherJsonIsIgnored() throws IOException {
+        val path = dir.resolve("seat_config.json.cache");
+        SeatConfigCache.write(path, JSON_HASH, snapshot());
+        assertNull(SeatConfigCache.read(path, JSON_HASH + 1));
+    }
+
+    @Test
+    void corruptCacheIsRejected() throws IOException {
+        val path = dir.resolve("seat_config.json.cache");
+        SeatConfigCache.write(path, JSON_HASH, snapshot());
+        val bytes = Files.readAllBytes(path);
+
+        // 截断
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+        assertNull(SeatConfigCache.read(path, JSON_HASH));
+
+        // 多出的字节
+        Files.write(path, Arrays.copyOf(bytes, bytes.length + 1));
+        assertNull(SeatConfigCache.read(path, JSON_HASH));
+
+        // 错误的文件头
+        val badMagic = bytes.clone();
+        badMagic[0] ^= 0x7F;
+        Files.write(path, badMagic);
+        assertNull(SeatConfigCache.read(path, JSON_HASH));
+
+        // 名字数量被改坏
+        val badCount = bytes.clone();
+        Arrays.fill(badCount, 16 + 13, bytes.length, (byte) 0xFF);
+        Files.write(path, badCount);
+        assertNull(SeatConfigCache.read(path, JSON_HASH));
+
+        // 只有文件头
+        Files.write(path, Arrays.copyOf(bytes, 16), StandardOpenOption.TRUNCATE_EXISTING);
+        assertNull(SeatConfigCache.read(path, JSON_HASH));
+    }
+
+    @Test
+    void missingCacheIsIgnored() {
+        assertNull(SeatConfigCache.read(dir.resolve("absent.cache"), JSON_HASH));
+    }
+
+}